@@ -1,21 +1,50 @@
 package model;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.TypedQuery;
+import util.Markdown;
 import util.Slug;
 
 @Entity
+// The blog index is sorted and paginated on (published, id)
+@Table(indexes = @Index(name = "blogentry_published_id", columnList = "published, id"))
 public class BlogEntry extends PanacheEntity {
 
+    public static final int PAGE_SIZE = 50;
+
+    // The id breaks ties between entries published the same day, so pages never overlap
+    private static final Sort NEWEST_FIRST = Sort.by("published", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
     @Column(unique = true)
     public String title;
 
+    // The lower-cased title, so case-insensitive title lookups can use its unique index
+    @Column(unique = true)
+    public String titleKey;
+
     @Column(unique = true)
     public String slug;
 
@@ -24,8 +53,18 @@ public class BlogEntry extends PanacheEntity {
     @Column(columnDefinition = "text")
     public String content;
 
+    // The plain text abstract of the content, computed when the entry is saved
+    @Column(length = 512)
+    public String abstractText;
+
     public LocalDate published;
 
+    // Bumped on every save, the blog derives its ETag and Last-Modified headers from these
+    @Column(columnDefinition = "bigint default 0 not null")
+    public long version;
+
+    public Instant updated;
+
     public BlogEntry() {
         super();
     }
@@ -36,17 +75,164 @@ public class BlogEntry extends PanacheEntity {
 
     public BlogEntry(String title, String picture, String content, LocalDate published) {
         this.title = title;
+        this.titleKey = toTitleKey(title);
         this.picture = picture;
         this.content = content;
+        this.abstractText = Markdown.toAbstract(content);
         this.slug = Slug.toSlug(title);
         this.published = published;
+        touch();
+    }
+
+    public void touch() {
+        version++;
+        updated = Instant.now();
     }
 
     public static List<BlogEntry> listAllSortedByPublished() {
         return BlogEntry.listAll(Sort.by("published").descending());
     }
 
+    /**
+     * Returns the page of entries that come after the given one (the first page when there's none), newest first.
+     */
+    public static EntryPage listSummariesPage(LocalDate afterPublished, Long afterId) {
+        PanacheQuery<BlogEntry> query = afterPublished != null && afterId != null
+                ? BlogEntry.find("published < ?1 or (published = ?1 and id < ?2)", NEWEST_FIRST,
+                        afterPublished, afterId)
+                : BlogEntry.findAll(NEWEST_FIRST);
+        // one more than a page, to know if there is a next one
+        List<BlogEntrySummary> entries = new ArrayList<>(query.project(BlogEntrySummary.class)
+                .range(0, PAGE_SIZE)
+                .list());
+        boolean hasMore = entries.size() > PAGE_SIZE;
+        if (hasMore) {
+            entries.remove(PAGE_SIZE);
+        }
+        return new EntryPage(entries, null, hasMore);
+    }
+
+    /**
+     * Returns the summaries of the given entries, in the same order.
+     */
+    public static List<BlogEntrySummary> listSummariesByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BlogEntrySummary> summaries = new HashMap<>();
+        for (BlogEntrySummary summary : BlogEntry.find("id in ?1", ids).project(BlogEntrySummary.class).list()) {
+            summaries.put(summary.id(), summary);
+        }
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
+    }
+
+    public static Optional<BlogEntrySummary> findSummaryById(Long id) {
+        return BlogEntry.find("id", id).project(BlogEntrySummary.class).firstResultOptional();
+    }
+
+    public BlogEntrySummary toSummary() {
+        return new BlogEntrySummary(id, title, slug, picture, published, abstractText);
+    }
+
+    /**
+     * Streams all the entries to build the search index from. The stream has to be consumed in a transaction, and
+     * closed.
+     */
+    public static Stream<SearchableEntry> streamSearchable() {
+        return BlogEntry.findAll(Sort.by("id"))
+                .project(SearchableEntry.class)
+                .withHint(AvailableHints.HINT_FETCH_SIZE, 100)
+                .stream();
+    }
+
+    /**
+     * Streams all the entries to export, scrolling through the results so they are never all in memory.
+     * The stream has to be consumed in a transaction, and closed.
+     */
+    public static Stream<BlogEntryLine> streamLines() {
+        return BlogEntry.findAll(Sort.by("id"))
+                .project(BlogEntryLine.class)
+                .withHint(AvailableHints.HINT_FETCH_SIZE, 100)
+                .stream();
+    }
+
+    /**
+     * Returns which of the given title keys and slugs are already used, with a single query.
+     */
+    public static TakenKeys findTaken(Collection<String> titleKeys, Collection<String> slugs) {
+        TakenKeys taken = new TakenKeys(new HashSet<>(), new HashSet<>());
+        if (titleKeys.isEmpty() && slugs.isEmpty()) {
+            return taken;
+        }
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select titleKey, slug from BlogEntry where titleKey in :titleKeys or slug in :slugs",
+                        Object[].class)
+                .setParameter("titleKeys", titleKeys)
+                .setParameter("slugs", slugs)
+                .getResultList();
+        for (Object[] row : rows) {
+            if (titleKeys.contains(row[0])) {
+                taken.titleKeys().add((String) row[0]);
+            }
+            if (slugs.contains(row[1])) {
+                taken.slugs().add((String) row[1]);
+            }
+        }
+        return taken;
+    }
+
+    public record TakenKeys(Set<String> titleKeys, Set<String> slugs) {
+    }
+
+    /**
+     * Returns which of the given entries are published, the others are scheduled for later and the blog doesn't show
+     * them yet.
+     */
+    public static Set<Long> findPublishedIds(Collection<Long> ids, LocalDate today) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(getEntityManager()
+                .createQuery("select id from BlogEntry where id in :ids and published <= :today", Long.class)
+                .setParameter("ids", ids)
+                .setParameter("today", today)
+                .getResultList());
+    }
+
+    public static long countScheduled(LocalDate today) {
+        return BlogEntry.count("published > ?1", today);
+    }
+
+    /**
+     * Returns the slug, or the slug with the first free "-2", "-3"... suffix when another entry already uses it.
+     * The used ones are found with a single prefix query on the slug index.
+     */
+    public static String uniqueSlug(String slug, Long id) {
+        String query = "select slug from BlogEntry where (slug = :slug or slug like :prefix escape '!')"
+                + (id != null ? " and id <> :id" : "");
+        TypedQuery<String> slugs = getEntityManager().createQuery(query, String.class)
+                .setParameter("slug", slug)
+                // '_' is allowed in slugs and is a LIKE wildcard
+                .setParameter("prefix", slug.replace("!", "!!").replace("_", "!_").replace("%", "!%") + "-%");
+        if (id != null) {
+            slugs.setParameter("id", id);
+        }
+        Set<String> taken = new HashSet<>(slugs.getResultList());
+        if (!taken.contains(slug)) {
+            return slug;
+        }
+        int suffix = 2;
+        while (taken.contains(slug + "-" + suffix)) {
+            suffix++;
+        }
+        return slug + "-" + suffix;
+    }
+
     public static Optional<BlogEntry> getByTitle(String title) {
-        return BlogEntry.find("LOWER(title) = LOWER(?1)", title).firstResultOptional();
+        return BlogEntry.find("titleKey", toTitleKey(title)).firstResultOptional();
+    }
+
+    public static String toTitleKey(String title) {
+        return title.toLowerCase(Locale.ROOT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * A blog entry as it is imported and exported, one per NDJSON line.
+ */
+public record BlogEntryLine(String title, String slug, String picture, LocalDate published, String content) {
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import util.LineDelta;
+
+/**
+ * The saved contents of a blog entry, one row per save, never updated nor deleted, not even with the entry.
+ * Every {@link #SNAPSHOT_INTERVAL}th revision is a compressed copy of the content, the others are compressed
+ * {@link LineDelta}s from the revision before. Any revision is rebuilt from its snapshot and fewer than
+ * {@link #SNAPSHOT_INTERVAL} deltas.
+ */
+@Entity
+@Table(indexes = @Index(name = "blogentryrevision_entry_revision", columnList = "entryId, revision", unique = true))
+public class BlogEntryRevision extends PanacheEntity {
+
+    public static final int SNAPSHOT_INTERVAL = 20;
+
+    public Long entryId;
+
+    // 1, 2, 3... for each entry
+    public int revision;
+
+    // the revision this one is rebuilt from: itself for a snapshot
+    public int snapshotRevision;
+
+    // the version of the entry when it was saved
+    public long version;
+
+    public Instant created;
+
+    // the length of the content, to list the revisions without rebuilding them
+    public int length;
+
+    @Lob
+    @Column(nullable = false)
+    public byte[] data;
+
+    public boolean isSnapshot() {
+        return revision == snapshotRevision;
+    }
+
+    /**
+     * Records the content of the entry as its next revision, unless it didn't change since the last one.
+     * The first time an entry is recorded, the content it had before is recorded first, when there was one.
+     */
+    public static void record(BlogEntry entry, String previousContent) {
+        String content = entry.content != null ? entry.content : "";
+        Optional<BlogEntryRevision> last = BlogEntryRevision.find("entryId", Sort.descending("revision"), entry.id)
+                .firstResultOptional();
+        if (last.isEmpty()) {
+            if (previousContent != null && !previousContent.equals(content)) {
+                snapshot(entry.id, 1, entry.version - 1, previousContent);
+                append(entry, 2, 1, previousContent, content);
+            } else {
+                snapshot(entry.id, 1, entry.version, content);
+            }
+            return;
+        }
+        BlogEntryRevision previous = last.get();
+        // rebuilt rather than taken from the entry, the content may have been changed without a revision since
+        String base = contentAt(entry.id, previous.revision).orElseThrow();
+        if (base.equals(content)) {
+            return;
+        }
+        int revision = previous.revision + 1;
+        if (revision - previous.snapshotRevision >= SNAPSHOT_INTERVAL) {
+            snapshot(entry.id, revision, entry.version, content);
+        } else {
+            append(entry, revision, previous.snapshotRevision, base, content);
+        }
+    }
+
+    private static void snapshot(Long entryId, int revision, long version, String content) {
+        BlogEntryRevision snapshot = new BlogEntryRevision();
+        snapshot.entryId = entryId;
+        snapshot.revision = revision;
+        snapshot.snapshotRevision = revision;
+        snapshot.version = version;
+        snapshot.created = Instant.now();
+        snapshot.length = content.length();
+        snapshot.data = LineDelta.compress(content);
+        snapshot.persist();
+    }
+
+    private static void append(BlogEntry entry, int revision, int snapshotRevision, String base, String content) {
+        byte[] delta = LineDelta.diff(base, content);
+        byte[] compressed = LineDelta.compress(content);
+        if (compressed.length <= delta.length) {
+            // mostly rewritten, a snapshot is smaller and shortens the chain
+            snapshot(entry.id, revision, entry.version, content);
+            return;
+        }
+        BlogEntryRevision next = new BlogEntryRevision();
+        next.entryId = entry.id;
+        next.revision = revision;
+        next.snapshotRevision = snapshotRevision;
+        next.version = entry.version;
+        next.created = Instant.now();
+        next.length = content.length();
+        next.data = delta;
+        next.persist();
+    }
+
+    /**
+     * Rebuilds the content of the entry at the given revision, from its snapshot and the deltas after it.
+     */
+    public static Optional<String> contentAt(Long entryId, int revision) {
+        List<BlogEntryRevision> chain = BlogEntryRevision.find(
+                "entryId = ?1 and revision <= ?2 and revision >= "
+                        + "(select snapshotRevision from BlogEntryRevision where entryId = ?1 and revision = ?2)",
+                Sort.by("revision"), entryId, revision)
+                .list();
+        if (chain.isEmpty()) {
+            return Optional.empty();
+        }
+        String content = LineDelta.decompress(chain.get(0).data);
+        for (BlogEntryRevision delta : chain.subList(1, chain.size())) {
+            content = LineDelta.apply(content, delta.data);
+        }
+        return Optional.of(content);
+    }
+
+    /**
+     * Lists the revisions of the entry, newest first, without their data.
+     */
+    public static List<RevisionSummary> listSummaries(Long entryId) {
+        return BlogEntryRevision.find("entryId", Sort.descending("revision"), entryId)
+                .project(RevisionSummary.class)
+                .list();
+    }
+}
@@ -0,0 +1,10 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a blog entry for listings, everything but its content.
+ */
+public record BlogEntrySummary(Long id, String title, String slug, String picture, LocalDate published,
+        String abstractText) {
+}
@@ -0,0 +1,16 @@
+package model;
+
+import java.util.List;
+
+/**
+ * One page of the CMS entry list, newest first, with the search filter it was selected with (or null).
+ */
+public record EntryPage(List<BlogEntrySummary> entries, String filter, boolean hasMore) {
+
+    /**
+     * The last entry of the page, where the next page starts from.
+     */
+    public BlogEntrySummary last() {
+        return entries.get(entries.size() - 1);
+    }
+}
@@ -0,0 +1,9 @@
+package model;
+
+import java.time.Instant;
+
+/**
+ * A revision of a blog entry without its data, see {@link BlogEntryRevision}.
+ */
+public record RevisionSummary(int revision, int snapshotRevision, long version, Instant created, int length) {
+}
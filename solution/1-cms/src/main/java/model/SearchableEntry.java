@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * What the search index is built from.
+ */
+public record SearchableEntry(Long id, String title, String slug, String content) {
+}
@@ -1,20 +1,41 @@
 package rest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.jboss.resteasy.reactive.RestForm;
 import org.jboss.resteasy.reactive.RestPath;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
 
 import io.quarkiverse.renarde.htmx.HxController;
 import io.quarkus.qute.CheckedTemplate;
 import io.quarkus.qute.TemplateInstance;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import model.BlogEntry;
+import model.BlogEntryRevision;
+import model.BlogEntrySummary;
+import model.EntryPage;
+import util.InvertedIndex;
+import util.Markdown;
+import util.PictureStore;
+import util.SearchService;
 import util.Slug;
 
 // Define a new controller, blocking (DB operations), at /cms
@@ -22,46 +43,128 @@ import util.Slug;
 @Path("/cms")
 public class Cms extends HxController {
 
+    @Inject
+    SearchService searchService;
+
+    @Inject
+    PictureStore pictureStore;
+
+    // Flashed (with the search filter) when the order of the entry list may have changed, so it is rendered again
+    // instead of single rows
+    private static final String ENTRY_LIST_CHANGED = "entryListChanged";
+
+    // The editor URLs are pushed to the history, so the current URL tells which entry was being edited
+    private static final Pattern EDITED_ENTRY_URL = Pattern.compile("/cms/(?:editBlogEntry|saveBlogEntry)/(\\d+)");
+
     /**
      * This defines templates available in src/main/resources/templates/Classname/method.html by convention
      */
     @CheckedTemplate
     public static class Templates {
         /**
-         * This specifies that the Cms/index.html template takes a list of blogEntries as parameter
+         * This specifies that the Cms/index.html template takes the first page of blogEntries as parameter
          */
-        public static native TemplateInstance index(List<BlogEntry> blogEntries, BlogEntry currentBlogEntry);
+        public static native TemplateInstance index(EntryPage page, BlogEntry currentBlogEntry);
 
-        public static native TemplateInstance entryList(List<BlogEntry> blogEntries, BlogEntry currentBlogEntry);
+        public static native TemplateInstance entryList(EntryPage page, Long currentId);
+
+        /**
+         * The rows of a page, followed by a row that loads the next page when it is scrolled into view
+         */
+        public static native TemplateInstance entryRows(EntryPage page, Long currentId);
+
+        /**
+         * A single row of the entry list, swapped out-of-band by htmx when oob is set
+         */
+        public static native TemplateInstance entryRow(BlogEntrySummary blogEntry, Long currentId, boolean oob);
 
         public static native TemplateInstance editEntry(BlogEntry currentBlogEntry);
+
+        public static native TemplateInstance pictureField(String picture);
     }
 
     // set up our blog index page at /cms
     @Path("")
     public TemplateInstance index() {
         if (isHxRequest()) {
-            return Templates.entryList(BlogEntry.listAllSortedByPublished(), null);
+            return Templates.entryList(entryPage(null), null);
+        }
+        return Templates.index(entryPage(null), null);
+    }
+
+    // search as you type, the whole list is swapped out-of-band
+    @POST
+    public TemplateInstance filterBlogEntries(@RestForm String filter) {
+        onlyHxRequest();
+        return Templates.entryList(entryPage(filter), editedEntryId());
+    }
+
+    // the next page of the list, after the given entry
+    @POST
+    public TemplateInstance moreBlogEntries(@RestForm LocalDate published, @RestForm Long id) {
+        onlyHxRequest();
+        return Templates.entryRows(BlogEntry.listSummariesPage(published, id), editedEntryId());
+    }
+
+    /**
+     * The first page of the entry list, newest first, or the best search matches for the filter
+     */
+    private EntryPage entryPage(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return BlogEntry.listSummariesPage(null, null);
         }
-        return Templates.index(BlogEntry.listAllSortedByPublished(), null);
+        List<Long> ids = searchService.search(filter, BlogEntry.PAGE_SIZE).stream()
+                .map(InvertedIndex.Hit::id)
+                .toList();
+        return new EntryPage(BlogEntry.listSummariesByIds(ids), filter.strip(), false);
     }
 
     public TemplateInstance newBlogEntry() {
         if (isHxRequest()) {
-            return concatTemplates(Templates.entryList(BlogEntry.listAllSortedByPublished(), null),
-                    Templates.editEntry(new BlogEntry()));
+            BlogEntry blogEntry = new BlogEntry();
+            return withEntryListUpdate(blogEntry, Templates.editEntry(blogEntry));
         }
-    	return Templates.index(BlogEntry.listAllSortedByPublished(), new BlogEntry());
+    	return Templates.index(entryPage(null), new BlogEntry());
     }
 
     public TemplateInstance editBlogEntry(@RestPath Long id) {
         BlogEntry blogEntry = BlogEntry.findById(id);
         notFoundIfNull(blogEntry);
         if (isHxRequest()) {
-            return concatTemplates(Templates.entryList(BlogEntry.listAllSortedByPublished(), blogEntry),
-                    Templates.editEntry(blogEntry));
+            return withEntryListUpdate(blogEntry, Templates.editEntry(blogEntry));
+        }
+        return Templates.index(entryPage(null), blogEntry);
+    }
+
+    /**
+     * Appends to the editor the entry list rows that changed: the row that was active and the new active row, swapped
+     * out-of-band. The whole list is only rendered again when its order may have changed.
+     */
+    private TemplateInstance withEntryListUpdate(BlogEntry currentBlogEntry, TemplateInstance editor) {
+        String filter = flash.get(ENTRY_LIST_CHANGED);
+        if (filter != null) {
+            return concatTemplates(Templates.entryList(entryPage(filter), currentBlogEntry.id), editor);
+        }
+        List<TemplateInstance> templates = new ArrayList<>(3);
+        Long editedId = editedEntryId();
+        if (editedId != null && !editedId.equals(currentBlogEntry.id)) {
+            BlogEntry.findSummaryById(editedId)
+                    .ifPresent(edited -> templates.add(Templates.entryRow(edited, currentBlogEntry.id, true)));
+        }
+        if (currentBlogEntry.id != null) {
+            templates.add(Templates.entryRow(currentBlogEntry.toSummary(), currentBlogEntry.id, true));
+        }
+        templates.add(editor);
+        return concatTemplates(templates.toArray(TemplateInstance[]::new));
+    }
+
+    private Long editedEntryId() {
+        String currentUrl = hx(HxRequestHeader.CURRENT_URL);
+        if (currentUrl == null) {
+            return null;
         }
-        return Templates.index(BlogEntry.listAllSortedByPublished(), blogEntry);
+        Matcher matcher = EDITED_ENTRY_URL.matcher(currentUrl);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
     }
 
     @POST
@@ -69,11 +172,15 @@ public class Cms extends HxController {
     		@RestForm @NotBlank String title,
             @RestForm @NotBlank String picture,
     		@RestForm String content,
-            @RestForm LocalDate published) {
+            @RestForm LocalDate published,
+            @RestForm String filter,
+            @RestForm FileUpload contentFile) {
+        content = formText(content, contentFile);
         if (validationFailed()) {
             editBlogEntry(id);
         }
-        BlogEntry blogEntry = BlogEntry.findById(id);
+        // locked like an autosave: one racing this save waits for it, then answers 409
+        BlogEntry blogEntry = BlogEntry.findById(id, LockModeType.PESSIMISTIC_WRITE);
         notFoundIfNull(blogEntry);
         if (BlogEntry.getByTitle(title).filter(other -> other.id != id).isPresent()) {
             validation.addError("title", String.format("A blog entry with the title [%s] already exists", title));
@@ -81,21 +188,52 @@ public class Cms extends HxController {
         if (validationFailed()) {
             editBlogEntry(id);
         }
+        if (!Objects.equals(blogEntry.published, published)) {
+            // the list is sorted by publication date
+            flash(ENTRY_LIST_CHANGED, filter != null ? filter : "");
+        }
         blogEntry.title = title;
+        blogEntry.titleKey = BlogEntry.toTitleKey(title);
         blogEntry.picture = picture;
-        blogEntry.content = content;
         blogEntry.published = published;
-        blogEntry.slug = Slug.toSlug(title);
+        blogEntry.slug = BlogEntry.uniqueSlug(Slug.toSlug(title), id);
+        saveContent(blogEntry, content);
         // save is automatic for managed entities
         editBlogEntry(id);
     }
 
+    /**
+     * Rolls the content of the entry back to the given revision. Saved like any other edit, it is recorded as a new
+     * revision and the ones after the restored one are kept.
+     */
+    @POST
+    public void restoreBlogEntryRevision(@RestPath Long id, @RestPath int revision) {
+        BlogEntry blogEntry = BlogEntry.findById(id, LockModeType.PESSIMISTIC_WRITE);
+        notFoundIfNull(blogEntry);
+        String content = BlogEntryRevision.contentAt(id, revision)
+                .orElseThrow(() -> new WebApplicationException(Response.Status.NOT_FOUND));
+        saveContent(blogEntry, content);
+        editBlogEntry(id);
+    }
+
+    private void saveContent(BlogEntry blogEntry, String content) {
+        String previousContent = blogEntry.content;
+        blogEntry.content = content;
+        blogEntry.abstractText = Markdown.toAbstract(content);
+        blogEntry.touch();
+        BlogEntryRevision.record(blogEntry, previousContent);
+        searchService.indexAfterCommit(blogEntry);
+    }
+
     @POST
     public void saveNewBlogEntry(
     		@RestForm @NotBlank String title,
             @RestForm @NotBlank String picture,
     		@RestForm String content,
-            @RestForm LocalDate published) {
+            @RestForm LocalDate published,
+            @RestForm String filter,
+            @RestForm FileUpload contentFile) {
+        content = formText(content, contentFile);
         if (validationFailed()) {
             newBlogEntry();
         }
@@ -106,17 +244,95 @@ public class Cms extends HxController {
             newBlogEntry();
         }
         BlogEntry blogEntry = new BlogEntry(title, picture, content, published);
+        blogEntry.slug = BlogEntry.uniqueSlug(blogEntry.slug, null);
         // make it persistent
         blogEntry.persist();
+        BlogEntryRevision.record(blogEntry, null);
+        searchService.indexAfterCommit(blogEntry);
+        flash(ENTRY_LIST_CHANGED, filter != null ? filter : "");
         editBlogEntry(blogEntry.id);
     }
 
+    /**
+     * Autosave: applies an edit made in the browser against the given version of the entry, and returns the new
+     * version. The edit replaces the chars between from and to in the content (with the \n line breaks of the browser,
+     * which is length chars long) by text. Answers 409 Conflict if the entry changed since, the editor then leaves it
+     * to a full save. Autosaves don't make revisions, the next save does.
+     */
+    @POST
+    @Produces(MediaType.TEXT_PLAIN)
+    public String autosaveBlogEntry(@RestPath Long id,
+            @RestForm long version,
+            @RestForm int length,
+            @RestForm int from,
+            @RestForm int to,
+            @RestForm String text,
+            @RestForm FileUpload textFile) {
+        // locked until the commit: a concurrent save or autosave of the entry waits, then sees the new version
+        BlogEntry blogEntry = BlogEntry.findById(id, LockModeType.PESSIMISTIC_WRITE);
+        notFoundIfNull(blogEntry);
+        // forms send CRLF line breaks, the editor works with LF ones
+        String content = blogEntry.content != null ? blogEntry.content.replace("\r\n", "\n") : "";
+        if (blogEntry.version != version || content.length() != length) {
+            throw new WebApplicationException(Response.Status.CONFLICT);
+        }
+        if (from < 0 || from > to || to > length) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        String inserted = formText(text, textFile);
+        blogEntry.content = content.substring(0, from) + (inserted != null ? inserted : "") + content.substring(to);
+        blogEntry.abstractText = Markdown.toAbstract(blogEntry.content);
+        blogEntry.touch();
+        searchService.indexAfterCommit(blogEntry);
+        return String.valueOf(blogEntry.version);
+    }
+
+    // Large texts are sent as a file part, which is streamed to disk instead of being buffered as a form attribute
+    // (limited by quarkus.http.limits.max-form-attribute-size)
+    private static String formText(String text, FileUpload file) {
+        if (file == null) {
+            return text;
+        }
+        try {
+            return Files.readString(file.uploadedFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores the uploaded picture and answers the picture field set to it. The file is streamed to disk by the upload
+     * and then only moved, see {@link PictureStore}.
+     */
+    @POST
+    public TemplateInstance uploadPicture(@RestForm FileUpload pictureFile) {
+        onlyHxRequest();
+        if (pictureFile == null) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        String picture = pictureStore.store(pictureFile.uploadedFile())
+                .orElseThrow(() -> new WebApplicationException(Response.Status.UNSUPPORTED_MEDIA_TYPE));
+        return Templates.pictureField(picture);
+    }
+
+    // named after its content, so it can be cached for good and is never revalidated
+    public Response picture(@RestPath String name) {
+        java.nio.file.Path file = pictureStore.find(name)
+                .orElseThrow(() -> new WebApplicationException(Response.Status.NOT_FOUND));
+        return Response.ok(file)
+                .type(name.endsWith(".png") ? "image/png" : "image/jpeg")
+                .header("Cache-Control", "public, max-age=31536000, immutable")
+                .build();
+    }
+
     @DELETE
     public String deleteBlogEntry(@RestPath("id") Long id) {
         onlyHxRequest();
         BlogEntry blogEntry = BlogEntry.findById(id);
         notFoundIfNull(blogEntry);
         blogEntry.delete();
+        // the revisions are kept, the content of a deleted entry can still be read back from its history
+        searchService.removeAfterCommit(id);
         // HTMX is not a fan of 204 No Content for swapping https://github.com/bigskysoftware/htmx/issues/1130
         return "";
     }
@@ -0,0 +1,38 @@
+package rest;
+
+import java.util.List;
+
+import org.jboss.resteasy.reactive.RestPath;
+
+import io.smallrye.common.annotation.Blocking;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import model.BlogEntryRevision;
+import model.RevisionSummary;
+
+/**
+ * The revision history of the blog entries, to look back at an older content, also of deleted entries. See
+ * {@link Cms#restoreBlogEntryRevision} to roll an entry back to one.
+ */
+@Blocking
+@Path("/cms/entries/{id}/revisions")
+public class Revisions {
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<RevisionSummary> list(@RestPath Long id) {
+        return BlogEntryRevision.listSummaries(id);
+    }
+
+    @GET
+    @Path("{revision}")
+    @Produces("text/markdown")
+    @Transactional
+    public String content(@RestPath Long id, @RestPath int revision) {
+        return BlogEntryRevision.contentAt(id, revision).orElseThrow(NotFoundException::new);
+    }
+}
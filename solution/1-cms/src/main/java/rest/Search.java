@@ -0,0 +1,45 @@
+package rest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.resteasy.reactive.RestQuery;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import model.BlogEntry;
+import util.InvertedIndex;
+import util.SearchService;
+
+/**
+ * Public full-text search of the blog entries, best matches first. The index has the scheduled entries too, for the
+ * CMS, they are left out here until they are published.
+ */
+@Path("/search")
+public class Search {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Inject
+    SearchService searchService;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<InvertedIndex.Hit> search(@RestQuery String q, @RestQuery @DefaultValue("10") int limit) {
+        int max = Math.min(Math.max(limit, 0), MAX_LIMIT);
+        LocalDate today = LocalDate.now();
+        // enough hits to still have max of them once the scheduled ones are left out
+        List<InvertedIndex.Hit> hits = searchService.search(q,
+                (int) Math.min(max + BlogEntry.countScheduled(today), Integer.MAX_VALUE));
+        Set<Long> published = BlogEntry.findPublishedIds(hits.stream().map(InvertedIndex.Hit::id).toList(), today);
+        return hits.stream()
+                .filter(hit -> published.contains(hit.id()))
+                .limit(max)
+                .toList();
+    }
+}
@@ -0,0 +1,190 @@
+package rest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+import model.BlogEntry;
+import model.BlogEntryRevision;
+import model.BlogEntryLine;
+import util.SearchService;
+import util.Slug;
+
+/**
+ * Moves blog entries between environments as NDJSON, one {@link BlogEntryLine} per line.
+ * Both ways are streamed: the export scrolls through the entries and the import reads the lines as they come, and
+ * stores them in chunks, each in its own transaction.
+ */
+@Blocking
+@Path("/cms/entries")
+public class Transfer {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    // the first errors are listed in the import result, the others are only counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public record ImportResult(int imported, int skipped, List<String> errors) {
+    }
+
+    private record Line(int number, BlogEntryLine entry) {
+    }
+
+    private static final class Report {
+        int imported;
+        int skipped;
+        final List<String> errors = new ArrayList<>();
+
+        void skip(int line, String reason) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + line + ": " + reason);
+            }
+        }
+    }
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    SearchService searchService;
+
+    // the inserts of a chunk are sent in JDBC batches of quarkus.hibernate-orm.jdbc.statement-batch-size
+    @ConfigProperty(name = "cms.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @GET
+    @Path("export")
+    @Produces(NDJSON)
+    public StreamingOutput exportEntries() {
+        ObjectWriter writer = mapper.writerFor(BlogEntryLine.class);
+        return output -> QuarkusTransaction.requiringNew().run(() -> {
+            try (Stream<BlogEntryLine> entries = BlogEntry.streamLines()) {
+                Iterator<BlogEntryLine> iterator = entries.iterator();
+                while (iterator.hasNext()) {
+                    output.write(writer.writeValueAsBytes(iterator.next()));
+                    output.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Imports the posted entries. Lines which are invalid or whose title or slug is already used are skipped and
+     * reported, the others are imported: a failure half way keeps the chunks that were already committed.
+     */
+    @POST
+    @Path("import")
+    @Consumes(NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public ImportResult importEntries(InputStream body) throws IOException {
+        ObjectReader reader = mapper.readerFor(BlogEntryLine.class);
+        Report report = new Report();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        int lineCount = 0;
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String json;
+            while ((json = lines.readLine()) != null) {
+                lineCount++;
+                if (json.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(new Line(lineCount, reader.readValue(json)));
+                } catch (JsonProcessingException e) {
+                    report.skip(lineCount, "invalid JSON, " + e.getOriginalMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        return new ImportResult(report.imported, report.skipped, report.errors);
+    }
+
+    private void importChunk(List<Line> chunk, Report report) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            List<Line> valid = new ArrayList<>(chunk.size());
+            Set<String> titleKeys = new HashSet<>();
+            Set<String> slugs = new HashSet<>();
+            for (Line line : chunk) {
+                BlogEntryLine entry = line.entry();
+                if (isBlank(entry.title()) || isBlank(entry.picture())) {
+                    report.skip(line.number(), "title and picture are required");
+                    continue;
+                }
+                // lines of the same chunk have to be unique too
+                String titleKey = BlogEntry.toTitleKey(entry.title());
+                String slug = slugOf(entry);
+                if (titleKeys.contains(titleKey) || slugs.contains(slug)) {
+                    report.skip(line.number(), "duplicate title or slug in the import");
+                    continue;
+                }
+                titleKeys.add(titleKey);
+                slugs.add(slug);
+                valid.add(line);
+            }
+            // one query for the whole chunk, instead of one per entry
+            BlogEntry.TakenKeys taken = BlogEntry.findTaken(titleKeys, slugs);
+            for (Line line : valid) {
+                BlogEntryLine entry = line.entry();
+                if (taken.titleKeys().contains(BlogEntry.toTitleKey(entry.title()))) {
+                    report.skip(line.number(), "a blog entry with the title [" + entry.title() + "] already exists");
+                } else if (taken.slugs().contains(slugOf(entry))) {
+                    report.skip(line.number(), "a blog entry with the slug [" + slugOf(entry) + "] already exists");
+                } else {
+                    BlogEntry blogEntry = new BlogEntry(entry.title(), entry.picture(), entry.content(),
+                            entry.published());
+                    blogEntry.slug = slugOf(entry);
+                    blogEntry.persist();
+                    BlogEntryRevision.record(blogEntry, null);
+                    searchService.indexAfterCommit(blogEntry);
+                    report.imported++;
+                }
+            }
+        });
+    }
+
+    // the slug is kept when there is one, so the blog URLs don't change, but normalized as the blog looks slugs up
+    // lower-cased: an exported slug is already one and stays the same
+    private static String slugOf(BlogEntryLine entry) {
+        String slug = isBlank(entry.slug()) ? "" : Slug.toSlug(entry.slug());
+        return slug.isEmpty() ? Slug.toSlug(entry.title()) : slug;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,317 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index of the blog entry titles and contents, ranked with BM25.
+ * Every term points to the (numbers of the) documents it appears in, sorted, with its frequency in each of them.
+ * An entry keeps its document number when it is updated, and the numbers of removed entries are reused, so the
+ * per-query arrays stay as small as the index.
+ * This class is not thread-safe, see {@link SearchService}.
+ */
+public final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // a term of the title counts as if it appeared that many times, so title matches rank first
+    private static final int TITLE_WEIGHT = 3;
+    // the last term of a query also matches the terms it starts with (search as you type), up to that many
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    public record Hit(Long id, String title, String slug, float score) {
+    }
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Integer> docByEntry = new HashMap<>();
+    // indexed by document number
+    private Long[] entryIds = new Long[1024];
+    private String[] titles = new String[1024];
+    private String[] slugs = new String[1024];
+    private String[][] docTerms = new String[1024][];
+    private int[] lengths = new int[1024];
+    private int docCount;
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private long totalLength;
+
+    public int size() {
+        return docByEntry.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public void put(Long id, String title, String slug, String content) {
+        Integer existing = docByEntry.get(id);
+        if (existing != null) {
+            unindex(existing);
+        }
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] length = new int[1];
+        forEachTerm(title, term -> {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0] += TITLE_WEIGHT;
+            length[0] += TITLE_WEIGHT;
+        });
+        forEachTerm(content, term -> {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+            length[0]++;
+        });
+        int doc = existing != null ? existing : newDoc();
+        entryIds[doc] = id;
+        titles[doc] = title;
+        slugs[doc] = slug;
+        lengths[doc] = length[0];
+        docTerms[doc] = frequencies.keySet().toArray(String[]::new);
+        totalLength += length[0];
+        docByEntry.put(id, doc);
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings())
+                .add(doc, frequency[0]));
+    }
+
+    public void remove(Long id) {
+        Integer doc = docByEntry.remove(id);
+        if (doc == null) {
+            return;
+        }
+        unindex(doc);
+        entryIds[doc] = null;
+        titles[doc] = null;
+        slugs[doc] = null;
+        freeDocs.push(doc);
+    }
+
+    private int newDoc() {
+        if (!freeDocs.isEmpty()) {
+            return freeDocs.pop();
+        }
+        if (docCount == entryIds.length) {
+            int capacity = docCount * 2;
+            entryIds = Arrays.copyOf(entryIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            slugs = Arrays.copyOf(slugs, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        return docCount++;
+    }
+
+    private void unindex(int doc) {
+        for (String term : docTerms[doc]) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(doc);
+            if (termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths[doc];
+        docTerms[doc] = null;
+        lengths[doc] = 0;
+    }
+
+    /**
+     * Returns the best matches of the query terms, best first.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        forEachTerm(query, terms::add);
+        if (terms.isEmpty() || docByEntry.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        float averageLength = (float) totalLength / docByEntry.size();
+        List<String> queryTerms = new ArrayList<>(terms);
+        String last = queryTerms.remove(queryTerms.size() - 1);
+        List<Postings> matchingPostings = new ArrayList<>();
+        for (String term : queryTerms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null) {
+                matchingPostings.add(termPostings);
+            }
+        }
+        NavigableMap<String, Postings> prefixed = postings.subMap(last, true, last + Character.MAX_VALUE, true);
+        int prefixTerms = 0;
+        for (Map.Entry<String, Postings> entry : prefixed.entrySet()) {
+            if (prefixTerms++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            if (!terms.contains(entry.getKey()) || entry.getKey().equals(last)) {
+                matchingPostings.add(entry.getValue());
+            }
+        }
+        int documents = docByEntry.size();
+        Scratch scratch = SCRATCH.get().ensureCapacity(docCount);
+        float[] scores = scratch.scores;
+        int[] matched = scratch.matched;
+        int matchCount = 0;
+        for (Postings termPostings : matchingPostings) {
+            float idf = (float) Math.log(1 + (documents - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            float lengthWeight = B / averageLength;
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = termPostings.docs[i];
+                int frequency = termPostings.frequencies[i];
+                float norm = K1 * (1 - B + lengthWeight * lengths[doc]);
+                if (scores[doc] == 0) {
+                    matched[matchCount++] = doc;
+                }
+                scores[doc] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+        // keep the best ones in a min-heap of document numbers, the worst of them on top
+        int[] heap = new int[Math.min(limit, matchCount)];
+        int heapSize = 0;
+        for (int i = 0; i < matchCount; i++) {
+            int doc = matched[i];
+            if (heapSize < heap.length) {
+                heap[heapSize++] = doc;
+                siftUp(heap, heapSize - 1, scores);
+            } else if (scores[doc] > scores[heap[0]]) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+        Hit[] hits = new Hit[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            int doc = heap[0];
+            hits[i] = new Hit(entryIds[doc], titles[doc], slugs[doc], scores[doc]);
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        // only the matched scores were touched, reset them for the next query
+        for (int i = 0; i < matchCount; i++) {
+            scores[matched[i]] = 0;
+        }
+        return List.of(hits);
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (scores[heap[i]] >= scores[heap[parent]]) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && scores[heap[left]] < scores[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && scores[heap[right]] < scores[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int doc = heap[i];
+        heap[i] = heap[j];
+        heap[j] = doc;
+    }
+
+    /**
+     * Splits the text into lower-case terms of letters and digits, without accents.
+     */
+    static void forEachTerm(String text, Consumer<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        boolean ascii = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    ascii = true;
+                }
+                ascii &= c < 128;
+            } else if (start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                terms.accept(ascii ? term : stripAccents(term));
+                start = -1;
+            }
+        }
+    }
+
+    private static String stripAccents(String term) {
+        String decomposed = Normalizer.normalize(term, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString();
+    }
+
+    // per-thread score accumulators, so a query allocates nothing in proportion to the index size
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        // always back to zeros between queries
+        float[] scores = new float[0];
+        int[] matched = new int[0];
+
+        Scratch ensureCapacity(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[docCount];
+                matched = new int[docCount];
+            }
+            return this;
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int doc, int frequency) {
+            // mostly appended, when the index is built, but reused document numbers go in the middle
+            int i = size == 0 || docs[size - 1] < doc ? size : -(Arrays.binarySearch(docs, 0, size, doc) + 1);
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(frequencies, i, frequencies, i + 1, size - i);
+            docs[i] = doc;
+            frequencies[i] = frequency;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i >= 0) {
+                System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+                System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -23,4 +23,11 @@ public class JavaExtensions {
         }
         return sb.toString();
     }
+
+    /**
+     * Whether the picture was uploaded to the {@link PictureStore}, rather than shipped with the blog
+     */
+    public static boolean isUploaded(String picture) {
+        return picture != null && PictureStore.NAME.matcher(picture).matches();
+    }
 }
@@ -0,0 +1,171 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed texts and line deltas between two texts, for the revision history.
+ * A delta rebuilds the new text from the lines of the old one: it is a list of copies of old lines and of inserted
+ * lines, deflated. Moved paragraphs are copies too, so a delta is about the size of what was typed.
+ */
+public final class LineDelta {
+
+    private static final byte COPY = 1;
+    private static final byte INSERT = 2;
+
+    // how many places of a line in the old text are tried, for the lines which are everywhere (blank lines...)
+    private static final int MAX_CANDIDATES = 16;
+
+    private LineDelta() {
+    }
+
+    public static byte[] compress(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = deflater(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static String decompress(byte[] data) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the delta which turns the old text into the new one.
+     */
+    public static byte[] diff(String oldText, String newText) {
+        List<String> oldLines = lines(oldText);
+        List<String> newLines = lines(newText);
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < oldLines.size(); i++) {
+            positions.computeIfAbsent(oldLines.get(i), line -> new ArrayList<>(1)).add(i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(deflater(bytes))) {
+            StringBuilder inserted = new StringBuilder();
+            int next = 0;
+            int i = 0;
+            while (i < newLines.size()) {
+                // the longest run of old lines starting with this one, trying the line after the last copy first
+                int bestStart = -1;
+                int bestCount = 0;
+                List<Integer> candidates = positions.getOrDefault(newLines.get(i), List.of());
+                if (next < oldLines.size() && oldLines.get(next).equals(newLines.get(i))) {
+                    bestStart = next;
+                    bestCount = run(oldLines, next, newLines, i);
+                }
+                for (int c = 0; c < candidates.size() && c < MAX_CANDIDATES; c++) {
+                    int start = candidates.get(c);
+                    int count = run(oldLines, start, newLines, i);
+                    if (count > bestCount) {
+                        bestStart = start;
+                        bestCount = count;
+                    }
+                }
+                if (bestCount == 0) {
+                    inserted.append(newLines.get(i++));
+                    continue;
+                }
+                writeInsert(out, inserted);
+                out.writeByte(COPY);
+                out.writeInt(bestStart);
+                out.writeInt(bestCount);
+                next = bestStart + bestCount;
+                i += bestCount;
+            }
+            writeInsert(out, inserted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Applies the delta to the old text it was made from.
+     */
+    public static String apply(String oldText, byte[] delta) {
+        List<String> oldLines = lines(oldText);
+        StringBuilder text = new StringBuilder(oldText.length());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(delta)))) {
+            int op;
+            while ((op = in.read()) != -1) {
+                if (op == COPY) {
+                    int start = in.readInt();
+                    int count = in.readInt();
+                    for (int i = start; i < start + count; i++) {
+                        text.append(oldLines.get(i));
+                    }
+                } else if (op == INSERT) {
+                    text.append(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8));
+                } else {
+                    throw new IllegalArgumentException("Corrupted delta, unknown operation " + op);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+
+    private static void writeInsert(DataOutputStream out, StringBuilder inserted) throws IOException {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        byte[] bytes = inserted.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(INSERT);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        inserted.setLength(0);
+    }
+
+    private static int run(List<String> oldLines, int oldStart, List<String> newLines, int newStart) {
+        int count = 0;
+        while (oldStart + count < oldLines.size() && newStart + count < newLines.size()
+                && oldLines.get(oldStart + count).equals(newLines.get(newStart + count))) {
+            count++;
+        }
+        return count;
+    }
+
+    // the lines with their line break, so the text is rebuilt exactly
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            end = end < 0 ? text.length() : end + 1;
+            lines.add(text.substring(start, end));
+            start = end;
+        }
+        return lines;
+    }
+
+    private static DeflaterOutputStream deflater(ByteArrayOutputStream bytes) {
+        return new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION), true) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                def.end();
+            }
+        };
+    }
+}
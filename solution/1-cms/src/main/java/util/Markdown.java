@@ -0,0 +1,101 @@
+package util;
+
+import com.vladsch.flexmark.ast.Code;
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.HardLineBreak;
+import com.vladsch.flexmark.ast.HtmlBlockBase;
+import com.vladsch.flexmark.ast.HtmlInlineBase;
+import com.vladsch.flexmark.ast.Image;
+import com.vladsch.flexmark.ast.ImageRef;
+import com.vladsch.flexmark.ast.IndentedCodeBlock;
+import com.vladsch.flexmark.ast.SoftLineBreak;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Block;
+import com.vladsch.flexmark.util.ast.Node;
+
+public final class Markdown {
+
+    public static final int ABSTRACT_LENGTH = 400;
+
+    private static final Parser PARSER = Parser.builder().build();
+
+    private Markdown() {
+    }
+
+    /**
+     * Returns the plain text of the given Markdown, cut after {@link #ABSTRACT_LENGTH} chars.
+     * The text is read straight from the Markdown AST and the walk stops as soon as enough text was collected.
+     */
+    public static String toAbstract(String markdown) {
+        if (markdown == null) {
+            return "";
+        }
+        PlainText text = new PlainText(ABSTRACT_LENGTH + 1);
+        text.visitChildren(PARSER.parse(markdown));
+        String abstractText = text.toString();
+        return abstractText.length() > ABSTRACT_LENGTH ? abstractText.substring(0, ABSTRACT_LENGTH) + "..." : abstractText;
+    }
+
+    private static final class PlainText {
+        private final StringBuilder text = new StringBuilder();
+        private final int limit;
+        private boolean pendingSpace;
+
+        PlainText(int limit) {
+            this.limit = limit;
+        }
+
+        void visitChildren(Node parent) {
+            for (Node node = parent.getFirstChild(); node != null && !full(); node = node.getNext()) {
+                visit(node);
+            }
+        }
+
+        private void visit(Node node) {
+            if (node instanceof Text) {
+                append(node.getChars().unescape());
+            } else if (node instanceof Code code) {
+                append(code.getText());
+            } else if (node instanceof FencedCodeBlock code) {
+                append(code.getContentChars());
+            } else if (node instanceof IndentedCodeBlock code) {
+                append(code.getContentChars());
+            } else if (node instanceof SoftLineBreak || node instanceof HardLineBreak) {
+                pendingSpace = true;
+            } else if (node instanceof Image || node instanceof ImageRef
+                    || node instanceof HtmlBlockBase || node instanceof HtmlInlineBase) {
+                // no visible text
+            } else {
+                visitChildren(node);
+            }
+            if (node instanceof Block) {
+                pendingSpace = true;
+            }
+        }
+
+        private void append(CharSequence chars) {
+            for (int i = 0; i < chars.length() && !full(); i++) {
+                char c = chars.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    pendingSpace = true;
+                    continue;
+                }
+                if (pendingSpace && !text.isEmpty()) {
+                    text.append(' ');
+                }
+                pendingSpace = false;
+                text.append(c);
+            }
+        }
+
+        private boolean full() {
+            return text.length() >= limit;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
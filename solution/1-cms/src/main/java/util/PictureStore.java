@@ -0,0 +1,99 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Uploaded blog entry pictures, stored in a dir shared with the blog under the SHA-256 of their content
+ * ("sha256.jpg"). The same picture uploaded twice is stored once, and a stored picture never changes, so it can be
+ * cached forever.
+ */
+@ApplicationScoped
+public class PictureStore {
+
+    public static final Pattern NAME = Pattern.compile("[0-9a-f]{64}\\.(?:jpg|png)");
+
+    private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G' };
+
+    @ConfigProperty(name = "cms.pictures.dir", defaultValue = "../pictures")
+    Path dir;
+
+    /**
+     * Stores the uploaded file and returns its picture name, or empty if it is not a JPEG or PNG picture.
+     * The file is read in a single pass, to hash it, and then moved: it is never loaded in memory.
+     */
+    public Optional<String> store(Path upload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] head = new byte[PNG.length];
+            int headLength = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream input = Files.newInputStream(upload)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    int copied = Math.min(read, head.length - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, copied);
+                    headLength += copied;
+                    digest.update(buffer, 0, read);
+                }
+            }
+            // the format is told by the content, the uploaded file name and type could be anything
+            String extension = startsWith(head, JPEG) ? "jpg" : startsWith(head, PNG) ? "png" : null;
+            if (extension == null) {
+                return Optional.empty();
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path file = dir.resolve(name);
+            if (!Files.exists(file)) {
+                Files.createDirectories(dir);
+                // the upload may be on another file system, move it next to the picture first so it appears at once
+                Path tmp = Files.createTempFile(dir, name, ".tmp");
+                try {
+                    Files.move(upload, tmp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            return Optional.of(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the stored picture, or empty if there is none with that name.
+     */
+    public Optional<Path> find(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = dir.resolve(name);
+        return Files.exists(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] head, byte[] magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
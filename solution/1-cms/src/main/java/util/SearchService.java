@@ -0,0 +1,103 @@
+package util;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import model.BlogEntry;
+import model.SearchableEntry;
+
+/**
+ * Full-text search over the blog entries, from an {@link InvertedIndex} built at startup.
+ * The CMS tells it about every saved or deleted entry, and the index is only changed once the transaction is
+ * committed, so a rolled back save is never searchable.
+ */
+@ApplicationScoped
+public class SearchService {
+
+    private static final Logger LOG = Logger.getLogger(SearchService.class);
+
+    private final InvertedIndex index = new InvertedIndex();
+    // many concurrent searches, one writer at a time
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    // after the dev data is seeded
+    @Transactional
+    void build(@Observes @Priority(Interceptor.Priority.LIBRARY_AFTER) StartupEvent event) {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try (Stream<SearchableEntry> entries = BlogEntry.streamSearchable()) {
+            entries.forEach(entry -> index.put(entry.id(), entry.title(), entry.slug(), entry.content()));
+            LOG.infof("Indexed %d blog entries (%d terms) in %dms", index.size(), index.termCount(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<InvertedIndex.Hit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void indexAfterCommit(BlogEntry entry) {
+        // read the entry now, it may not be usable after the transaction
+        Long id = entry.id;
+        String title = entry.title;
+        String slug = entry.slug;
+        String content = entry.content;
+        afterCommit(() -> index.put(id, title, slug, content));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> index.remove(id));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (transactions.getTransactionKey() == null) {
+            write(change);
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    write(change);
+                }
+            }
+        });
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
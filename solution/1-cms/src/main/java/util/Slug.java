@@ -1,17 +1,111 @@
 package util;
 
 import java.text.Normalizer;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.Map;
 
+/**
+ * Turns titles into URL slugs: whitespace becomes '-', letters and digits are lower-cased and stripped of their
+ * accents, anything else is left out.
+ * This is done in a single pass over the title, with lookup tables: ASCII titles which already are slugs are returned
+ * as they are, and the others only allocate the slug.
+ */
 public final class Slug {
-    private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
-    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+
+    // what each ASCII char becomes: itself lower-cased, '-' for whitespace, or 0 when it is left out
+    private static final char[] ASCII = new char[128];
+
+    // the Latin letters of Latin-1 and Latin Extended-A and B, other chars are decomposed when they come up
+    private static final int LATIN_END = 0x250;
+    private static final String[] LATIN = new String[LATIN_END];
+
+    // the letters which don't decompose into a base letter and an accent
+    private static final Map<Character, String> TRANSLITERATIONS = Map.ofEntries(
+            Map.entry('ß', "ss"),
+            Map.entry('æ', "ae"), Map.entry('Æ', "ae"),
+            Map.entry('œ', "oe"), Map.entry('Œ', "oe"),
+            Map.entry('ø', "o"), Map.entry('Ø', "o"),
+            Map.entry('ł', "l"), Map.entry('Ł', "l"),
+            Map.entry('đ', "d"), Map.entry('Đ', "d"),
+            Map.entry('ð', "d"), Map.entry('Ð', "d"),
+            Map.entry('þ', "th"), Map.entry('Þ', "th"),
+            Map.entry('ı', "i"), Map.entry('ħ', "h"), Map.entry('Ħ', "h"));
+
+    static {
+        for (char c = 0; c < ASCII.length; c++) {
+            if (c >= 'A' && c <= 'Z') {
+                ASCII[c] = (char) (c + ('a' - 'A'));
+            } else if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_' || c == '-') {
+                ASCII[c] = c;
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r') {
+                ASCII[c] = '-';
+            }
+        }
+        for (char c = 128; c < LATIN_END; c++) {
+            LATIN[c] = TRANSLITERATIONS.getOrDefault(c, decompose(c));
+        }
+    }
+
+    private Slug() {
+    }
 
     public static String toSlug(String input) {
-        String noWhitespace = WHITESPACE.matcher(input).replaceAll("-");
-        String normalized = Normalizer.normalize(noWhitespace, Normalizer.Form.NFD);
-        String slug = NONLATIN.matcher(normalized).replaceAll("");
-        return slug.toLowerCase(Locale.ENGLISH);
+        int length = input.length();
+        // only allocated once a char has to change, up to there the slug is the start of the input
+        char[] slug = null;
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c < 128) {
+                char mapped = ASCII[c];
+                if (slug == null) {
+                    if (mapped == c && c != 0) {
+                        continue;
+                    }
+                    slug = start(input, i, length);
+                    size = i;
+                }
+                if (mapped != 0) {
+                    slug = ensureCapacity(slug, size + 1);
+                    slug[size++] = mapped;
+                }
+            } else {
+                String mapped = c < LATIN_END ? LATIN[c] : decompose(c);
+                if (slug == null) {
+                    slug = start(input, i, length);
+                    size = i;
+                }
+                slug = ensureCapacity(slug, size + mapped.length());
+                mapped.getChars(0, mapped.length(), slug, size);
+                size += mapped.length();
+            }
+        }
+        return slug == null ? input : new String(slug, 0, size);
+    }
+
+    private static char[] start(String input, int end, int length) {
+        // room for a few transliterations which are longer than the char they replace
+        char[] slug = new char[length + 8];
+        input.getChars(0, end, slug, 0);
+        return slug;
+    }
+
+    private static char[] ensureCapacity(char[] slug, int capacity) {
+        return capacity <= slug.length ? slug : Arrays.copyOf(slug, Math.max(slug.length * 2, capacity));
+    }
+
+    /**
+     * The ASCII letters and digits of the canonical decomposition of the char, which leaves out its accents.
+     */
+    private static String decompose(char c) {
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        StringBuilder ascii = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char d = decomposed.charAt(i);
+            if (d < 128 && ASCII[d] != 0 && ASCII[d] != '-') {
+                ascii.append(ASCII[d]);
+            }
+        }
+        return ascii.toString();
     }
-}
\ No newline at end of file
+}
@@ -3,13 +3,132 @@ import "easymde/dist/easymde.min.css"
 import { Controller } from "@hotwired/stimulus";
 import StimulusApp from "../app";
 
+// Texts bigger than this (in bytes) are sent as a file part, the server streams those to disk instead of
+// keeping them as a form attribute (limited to 10K)
+const FILE_PART_SIZE = 8 * 1024;
+const AUTOSAVE_DELAY = 2000;
+
+function appendText(formData, name, text) {
+    const blob = new Blob([text], { type: "text/markdown" });
+    if (blob.size > FILE_PART_SIZE) {
+        formData.append(name + "File", blob, name + ".md");
+    } else {
+        formData.append(name, text);
+    }
+}
+
+function isHighSurrogate(code) {
+    return code >= 0xD800 && code <= 0xDBFF;
+}
+
+function isLowSurrogate(code) {
+    return code >= 0xDC00 && code <= 0xDFFF;
+}
+
+// The single edit turning before into after: the chars between from and to are replaced by text
+function diff(before, after) {
+    if (before === after) {
+        return null;
+    }
+    const max = Math.min(before.length, after.length);
+    let from = 0;
+    while (from < max && before.charCodeAt(from) === after.charCodeAt(from)) {
+        from++;
+    }
+    // never cut a surrogate pair, half of it would not survive the trip to the server
+    if (from > 0 && isHighSurrogate(before.charCodeAt(from - 1))) {
+        from--;
+    }
+    let end = 0;
+    while (end < max - from
+        && before.charCodeAt(before.length - 1 - end) === after.charCodeAt(after.length - 1 - end)) {
+        end++;
+    }
+    if (end > 0 && isLowSurrogate(before.charCodeAt(before.length - end))) {
+        end--;
+    }
+    return { from, to: before.length - end, text: after.substring(from, after.length - end) };
+}
+
+function csrfHeaders() {
+    return JSON.parse(document.body.getAttribute("hx-headers") || "{}");
+}
+
 StimulusApp.register("blog-editor", class extends Controller {
     connect() {
         console.log("init new editor")
         this.editor = new EasyMDE({ element: this.element, forceSync: true, spellChecker: false });
+        this.form = this.element.form;
+        if (!this.form) {
+            return;
+        }
+        // send big contents as a file part when saving the form
+        this.onConfigRequest = (event) => {
+            const formData = event.detail.formData;
+            const content = this.editor.value();
+            if (formData && new Blob([content]).size > FILE_PART_SIZE) {
+                formData.delete(this.element.name);
+                appendText(formData, this.element.name, content);
+            }
+        };
+        this.form.addEventListener("htmx:configRequest", this.onConfigRequest);
+        // only existing entries are autosaved, with the edits since the version that was last saved
+        this.autosaveUrl = this.form.dataset.autosaveUrl;
+        this.version = this.form.dataset.version;
+        this.saved = this.editor.value();
+        if (this.autosaveUrl) {
+            this.editor.codemirror.on("change", () => this.scheduleAutosave());
+        }
+    }
+
+    scheduleAutosave() {
+        clearTimeout(this.autosaveTimer);
+        this.autosaveTimer = setTimeout(() => this.autosave(), AUTOSAVE_DELAY);
+    }
+
+    async autosave() {
+        if (!this.autosaveUrl) {
+            return;
+        }
+        if (this.autosaving) {
+            this.scheduleAutosave();
+            return;
+        }
+        const content = this.editor.value();
+        const edit = diff(this.saved, content);
+        if (!edit) {
+            return;
+        }
+        const body = new FormData();
+        body.append("version", this.version);
+        body.append("length", this.saved.length);
+        body.append("from", edit.from);
+        body.append("to", edit.to);
+        appendText(body, "text", edit.text);
+        this.autosaving = true;
+        try {
+            const response = await fetch(this.autosaveUrl, { method: "POST", body, headers: csrfHeaders() });
+            if (response.ok) {
+                this.version = await response.text();
+                this.saved = content;
+            } else if (response.status === 409) {
+                console.warn("The entry was changed elsewhere, autosave is off until it is saved");
+                this.autosaveUrl = null;
+            } else {
+                console.error("Autosave failed", response.status);
+            }
+        } catch (e) {
+            console.error("Autosave failed", e);
+        } finally {
+            this.autosaving = false;
+        }
     }
 
     disconnect() {
+        clearTimeout(this.autosaveTimer);
+        if (this.form) {
+            this.form.removeEventListener("htmx:configRequest", this.onConfigRequest);
+        }
         this.editor.toTextArea();
         this.editor.cleanup();
         console.log("cleanup");
@@ -1,52 +1,196 @@
 package web.lab.blog;
 
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import io.quarkiverse.roq.generator.runtime.RoqSelection;
 import io.quarkiverse.roq.generator.runtime.SelectedPath;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.Produces;
+import org.jboss.resteasy.reactive.RestHeader;
+import org.jboss.resteasy.reactive.RestQuery;
 import org.jboss.resteasy.reactive.RestResponse;
 
 import io.quarkus.qute.CheckedTemplate;
 import io.quarkus.qute.TemplateInstance;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 
 @Path("/")
 @Blocking
 public class Blog {
 
+    @Inject
+    GenerationManifest generationManifest;
+
+    @Inject
+    SiteGenerator siteGenerator;
+
+    @Inject
+    PageCache pageCache;
+
+    @Inject
+    IndexKeys indexKeys;
+
+    @Inject
+    Pictures pictures;
+
     // You can also use template records with JDK 14+
     // record blogPost(BlogEntry entry) implements TemplateInstance {}
 
     @CheckedTemplate
     static class Templates {
 
+       static native TemplateInstance index(IndexPage page);
+
        static native TemplateInstance blogPost(BlogEntry entry);
 
     }
 
+    @GET
+    @Produces(MediaType.TEXT_HTML)
+    public Response index(Request request, @RestHeader("Accept-Encoding") String acceptEncoding) {
+        return indexPage(1, null, request, acceptEncoding);
+    }
+
+    @Path("/page/{page}")
+    @GET
+    @Produces(MediaType.TEXT_HTML)
+    public Response indexPage(int page, @RestQuery String after, Request request,
+            @RestHeader("Accept-Encoding") String acceptEncoding) {
+        if (page < 1) {
+            throw new WebApplicationException(RestResponse.StatusCode.NOT_FOUND);
+        }
+        EntryKey afterKey = null;
+        if (after != null && !after.isEmpty() && page > 1) {
+            try {
+                afterKey = EntryKey.parse(after);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+        }
+        final IndexPage indexPage = indexKeys.page(page, afterKey);
+        if (page > 1 && indexPage.entries().isEmpty()) {
+            throw new WebApplicationException(RestResponse.StatusCode.NOT_FOUND);
+        }
+        final String version = indexVersion(indexPage);
+        final EntityTag etag = new EntityTag(version);
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        return pageCache.get(indexPath(page), version, () -> Templates.index(indexPage).render())
+                .response(acceptEncoding)
+                .tag(etag)
+                .build();
+    }
+
     @Path("/blog/{slug}")
     @GET
-    public TemplateInstance blogPost(String slug) {
-        final Optional<BlogEntry> blogEntry = BlogEntry.getBySlug(slug);
-        if (blogEntry.isEmpty()) {
+    @Produces(MediaType.TEXT_HTML)
+    public Response blogPost(String slug, Request request, @RestHeader("Accept-Encoding") String acceptEncoding) {
+        // answer conditional requests from the entry version alone, without loading the content nor rendering
+        final Optional<EntryVersion> version = BlogEntry.getVersionBySlug(slug);
+        if (version.isEmpty()) {
             throw new WebApplicationException(RestResponse.StatusCode.NOT_FOUND);
         }
-        return Templates.blogPost(blogEntry.get());
-        // You can also use template records with JDK 14+
-        // return new blogPost(blogEntry.get());
+        final EntityTag etag = version.get().etag();
+        final Date lastModified = version.get().lastModified();
+        final Response.ResponseBuilder notModified = lastModified != null
+                ? request.evaluatePreconditions(lastModified, etag)
+                : request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).lastModified(lastModified).build();
+        }
+        // the cached page is replaced as soon as the entry version changes
+        final CachedPage cachedPage = pageCache.get(blogPostPath(slug), etag.getValue(), () -> {
+            final BlogEntry blogEntry = BlogEntry.<BlogEntry>findByIdOptional(version.get().id())
+                    .orElseThrow(() -> new WebApplicationException(RestResponse.StatusCode.NOT_FOUND));
+            return Templates.blogPost(blogEntry).render();
+            // You can also use template records with JDK 14+
+            // return new blogPost(blogEntry).render();
+        });
+        return cachedPage.response(acceptEncoding)
+                .tag(etag)
+                .lastModified(lastModified)
+                .build();
+    }
+
+    @Path("/pictures/{width}/{name}")
+    @GET
+    public Response picture(int width, String name, Request request) {
+        final java.nio.file.Path file = pictures.resized(name, width)
+                .orElseThrow(() -> new WebApplicationException(RestResponse.StatusCode.NOT_FOUND));
+        // the copies are named after the content of the original
+        final EntityTag etag = new EntityTag(file.getFileName().toString());
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        // a Path is sent as it is from the disk, without being copied through the heap
+        return Response.ok(file)
+                .type(name.toLowerCase(Locale.ROOT).endsWith(".png") ? "image/png" : "image/jpeg")
+                .tag(etag)
+                .header("Cache-Control", Pictures.isUploaded(name)
+                        ? "public, max-age=31536000, immutable"
+                        : "public, max-age=86400")
+                .build();
+    }
+
+    static String indexPath(int page) {
+        return page == 1 ? "/" : "/" + IndexPage.path(page);
+    }
+
+    // an index page changes whenever one of the entries it lists does
+    static String indexVersion(IndexPage page) {
+        return ContentHash.sha256(page.toString());
+    }
+
+    static String blogPostPath(String slug) {
+        return "/blog/" + slug.toLowerCase(Locale.ENGLISH);
     }
 
     @Produces
     @Singleton
     @Transactional
     RoqSelection produceRoqSelection() {
-        return new RoqSelection(BlogEntry.<BlogEntry>listAll().stream().map(e -> SelectedPath.builder().html("/blog/" + e.slug + "/").build()).toList());
+        // every page with the hash of what it is rendered from, only the changed ones are selected
+        Map<String, String> pages = new LinkedHashMap<>();
+        // "/" is already selected in the configuration, the other pages are read one after the other
+        indexKeys.clear();
+        for (IndexPage page = indexKeys.page(1, null); page.hasNext(); ) {
+            page = indexKeys.next(page);
+            pages.put("/" + IndexPage.path(page.number()) + "/", ContentHash.sha256(page.toString()));
+        }
+        for (BlogEntry entry : BlogEntry.listPublished()) {
+            pages.put("/blog/" + entry.slug + "/", entry.contentHash());
+            pictures.hash(entry.picture).ifPresent(hash -> Pictures.WIDTHS
+                    .forEach(width -> pages.put(Pictures.path(entry.picture, width), hash)));
+        }
+        List<String> changed = generationManifest.changedPages(pages);
+        if (siteGenerator.isParallel()) {
+            // the pages are rendered here, Roq is left with what is selected in the configuration
+            siteGenerator.generate(changed);
+            return new RoqSelection(List.of());
+        }
+        return new RoqSelection(changed.stream()
+                .map(path -> path.endsWith("/")
+                        ? SelectedPath.builder().html(path).build()
+                        : SelectedPath.builder().path(path).build())
+                .toList());
     }
 
 
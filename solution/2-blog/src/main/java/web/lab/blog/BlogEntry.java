@@ -6,13 +6,20 @@ import io.quarkus.qute.TemplateData;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @TemplateData(namespace = "BlogEntry")
 @Entity
 public class BlogEntry extends PanacheEntity {
+
+    public static final int PAGE_SIZE = 10;
+
+    private static final Sort NEWEST_FIRST = Sort.by("published", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
     
     public String title;
 
@@ -22,18 +29,91 @@ public class BlogEntry extends PanacheEntity {
 
     @Column(columnDefinition="text")
     public String content;
+
+    public String abstractText;
     
     public LocalDate published = LocalDate.now();
+
+    public long version;
+
+    public Instant updated;
     
     public static List<BlogEntry> listAllSortedByPublished() {
-        return BlogEntry.listAll(Sort.by("published").descending());
+        return BlogEntry.list("published <= ?1", Sort.by("published").descending(), today());
+    }
+
+    /**
+     * Entries published later are scheduled, the blog doesn't show them until then, see {@link Publisher}.
+     */
+    public static LocalDate today() {
+        return LocalDate.now();
+    }
+
+    public static List<BlogEntry> listPublished() {
+        return BlogEntry.list("published <= ?1", today());
+    }
+
+    /**
+     * Returns the given page of the index, newest entries first, which starts after the given key: the last entry of
+     * the page before it, none for the first page.
+     * Pages are read with keyset pagination on (published, id), so deep pages never fetch the rows before them. The
+     * key of a page comes from the page before it, see {@link IndexKeys}. The key may come from a client, scheduled
+     * entries are left out whatever it is.
+     */
+    public static IndexPage page(int number, EntryKey after) {
+        List<BlogEntrySummary> entries = (after == null
+                ? BlogEntry.find("published <= ?1", NEWEST_FIRST, today())
+                : BlogEntry.find("(published < ?1 OR (published = ?1 AND id < ?2)) and published <= ?3",
+                        NEWEST_FIRST, after.published(), after.id(), today()))
+                .project(BlogEntrySummary.class)
+                .range(0, PAGE_SIZE)
+                .list();
+        boolean hasNext = entries.size() > PAGE_SIZE;
+        return new IndexPage(number, hasNext ? entries.subList(0, PAGE_SIZE) : entries, hasNext);
+    }
+
+    public static int pageCount() {
+        return Math.max(1, (int) ((BlogEntry.count("published <= ?1", today()) + PAGE_SIZE - 1) / PAGE_SIZE));
+    }
+
+    public static IndexState indexState() {
+        Object[] row = getEntityManager()
+                .createQuery("select count(e), max(e.updated) from BlogEntry e where e.published <= ?1", Object[].class)
+                .setParameter(1, today())
+                .getSingleResult();
+        return new IndexState((Long) row[0], (Instant) row[1]);
+    }
+
+    /**
+     * Hash of everything the blog post page is rendered from.
+     */
+    public String contentHash() {
+        return ContentHash.sha256(String.join("\n", title, slug, picture, String.valueOf(published), content));
     }
 
     public static Optional<BlogEntry> getBySlug(String slug) {
         if (slug.isBlank()) {
             return Optional.empty();
         }
-        return BlogEntry.find("LOWER(slug) = LOWER(?1)", slug).firstResultOptional();
+        // slugs are stored lower-cased by the CMS, so this can use the unique index on slug
+        return BlogEntry.find("slug = ?1 and published <= ?2", slug.toLowerCase(Locale.ENGLISH), today())
+                .firstResultOptional();
+    }
+
+    public static Optional<EntryVersion> getVersionBySlug(String slug) {
+        if (slug.isBlank()) {
+            return Optional.empty();
+        }
+        return BlogEntry.find("slug = ?1 and published <= ?2", slug.toLowerCase(Locale.ENGLISH), today())
+                .project(EntryVersion.class)
+                .firstResultOptional();
+    }
+
+    /**
+     * Returns the entries published in (after, until], the ones a {@link Publisher} run makes visible.
+     */
+    public static List<BlogEntry> listPublishedBetween(LocalDate after, LocalDate until) {
+        return BlogEntry.list("published > ?1 and published <= ?2", after, until);
     }
 
 
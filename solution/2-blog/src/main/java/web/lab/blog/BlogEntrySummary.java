@@ -0,0 +1,13 @@
+package web.lab.blog;
+
+import io.quarkus.qute.TemplateData;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a blog entry for listings, everything but its content.
+ */
+@TemplateData
+public record BlogEntrySummary(Long id, String title, String slug, String picture, LocalDate published,
+        String abstractText) {
+}
@@ -0,0 +1,81 @@
+package web.lab.blog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * A rendered page with its gzip and brotli compressed copies, compressed once when the page is cached.
+ * The brotli copy is missing when the native brotli library is not available on this platform.
+ */
+public record CachedPage(String version, byte[] identity, byte[] gzip, byte[] brotli) {
+
+    public static CachedPage of(String version, String html) {
+        byte[] identity = html.getBytes(StandardCharsets.UTF_8);
+        return new CachedPage(version, identity, gzip(identity), brotli(identity));
+    }
+
+    public int size() {
+        return identity.length + gzip.length + (brotli != null ? brotli.length : 0);
+    }
+
+    /**
+     * Returns the smallest copy of the page the client accepts.
+     */
+    public Response.ResponseBuilder response(String acceptEncoding) {
+        Response.ResponseBuilder response;
+        if (brotli != null && accepts(acceptEncoding, "br")) {
+            response = Response.ok(brotli).header(HttpHeaders.CONTENT_ENCODING, "br");
+        } else if (accepts(acceptEncoding, "gzip")) {
+            response = Response.ok(gzip).header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            response = Response.ok(identity);
+        }
+        return response.type(MediaType.TEXT_HTML_TYPE.withCharset("UTF-8")).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String accepted : acceptEncoding.split(",")) {
+            String[] parts = accepted.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                // "gzip;q=0" means not acceptable
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] bytes) {
+        if (!Brotli4jLoader.isAvailable()) {
+            return null;
+        }
+        try {
+            // the page is compressed only once, so it's worth the best (slowest) quality
+            return Encoder.compress(bytes, new Encoder.Parameters().setQuality(11));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
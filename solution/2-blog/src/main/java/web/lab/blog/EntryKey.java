@@ -0,0 +1,32 @@
+package web.lab.blog;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The (published, id) key the blog index is sorted and paginated on.
+ * The links to the next index page carry the key of the last entry of the page before it, as "published_id".
+ */
+public record EntryKey(Long id, LocalDate published) {
+
+    public static EntryKey of(BlogEntrySummary entry) {
+        return new EntryKey(entry.id(), entry.published());
+    }
+
+    public String encode() {
+        return published + "_" + id;
+    }
+
+    /**
+     * Reads a key from a link, throws IllegalArgumentException when it was not made by {@link #encode()}.
+     */
+    public static EntryKey parse(String key) {
+        try {
+            int separator = key.lastIndexOf('_');
+            return new EntryKey(Long.valueOf(key.substring(separator + 1)),
+                    LocalDate.parse(key.substring(0, separator)));
+        } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid entry key " + key, e);
+        }
+    }
+}
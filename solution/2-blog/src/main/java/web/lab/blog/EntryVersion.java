@@ -0,0 +1,22 @@
+package web.lab.blog;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import jakarta.ws.rs.core.EntityTag;
+
+/**
+ * The version of a blog entry, enough to answer conditional requests without loading the entry.
+ */
+public record EntryVersion(Long id, long version, Instant updated) {
+
+    public EntityTag etag() {
+        return new EntityTag(id + "-" + version);
+    }
+
+    // HTTP dates have a one second precision
+    public Date lastModified() {
+        return updated == null ? null : Date.from(updated.truncatedTo(ChronoUnit.SECONDS));
+    }
+}
@@ -0,0 +1,159 @@
+package web.lab.blog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Remembers the hash of every generated page and the file it was written to, so a static site generation only
+ * renders the pages that changed since the previous one.
+ * Delete the manifest (or the output dir) to force a full generation, e.g. after changing the templates.
+ * A changed page is only recorded once its output file was written by this generation: a page which failed to render,
+ * or was not reached when the generation failed, keeps its previous hash and is generated again the next time.
+ */
+@ApplicationScoped
+public class GenerationManifest {
+
+    private static final Logger LOG = Logger.getLogger(GenerationManifest.class);
+
+    @ConfigProperty(name = "blog.generator.manifest", defaultValue = "target/roq-manifest.properties")
+    Path manifestFile;
+
+    @ConfigProperty(name = "quarkus.roq.generator.output-dir", defaultValue = "roq")
+    String roqOutputDir;
+
+    private Path outputDir;
+    private Properties generated;
+    private Properties previous;
+    private List<String> changed;
+    // the output files written since then are the ones of this generation
+    private FileTime started;
+
+    /**
+     * Returns the paths of the given pages (path to content hash) that have to be generated again, and deletes the
+     * output of the previously generated pages that are gone.
+     */
+    public synchronized List<String> changedPages(Map<String, String> pageHashes) {
+        // some file systems only keep the second a file was modified
+        started = FileTime.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        outputDir = outputDir(roqOutputDir);
+        previous = load();
+        generated = new Properties();
+        changed = new ArrayList<>();
+        pageHashes.forEach((path, hash) -> {
+            String outputFile = outputFile(path);
+            generated.setProperty(path, hash + " " + outputFile);
+            if (!(hash + " " + outputFile).equals(previous.getProperty(path))
+                    || !Files.exists(outputDir.resolve(outputFile))) {
+                changed.add(path);
+            }
+        });
+        for (String path : previous.stringPropertyNames()) {
+            if (!pageHashes.containsKey(path)) {
+                delete(path);
+            }
+        }
+        LOG.infof("%d of %d pages changed since the last generation", changed.size(), pageHashes.size());
+        return changed;
+    }
+
+    synchronized void save(@Observes ShutdownEvent event) {
+        if (generated == null) {
+            return;
+        }
+        int failed = 0;
+        for (String path : changed) {
+            if (!isGenerated(path)) {
+                failed++;
+                String previousValue = previous.getProperty(path);
+                if (previousValue != null) {
+                    generated.setProperty(path, previousValue);
+                } else {
+                    generated.remove(path);
+                }
+            }
+        }
+        if (failed > 0) {
+            LOG.warnf("%d of %d changed pages were not generated, they will be the next time", failed, changed.size());
+        }
+        try {
+            Files.createDirectories(manifestFile.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(manifestFile)) {
+                generated.store(writer, "Generated pages: path=hash output-file");
+            }
+        } catch (IOException e) {
+            LOG.errorf(e, "Could not save the generation manifest to %s", manifestFile);
+        }
+    }
+
+    private boolean isGenerated(String path) {
+        Path file = outputDir.resolve(outputFile(path));
+        try {
+            return Files.exists(file) && Files.getLastModifiedTime(file).compareTo(started) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (Files.exists(manifestFile)) {
+            try (Reader reader = Files.newBufferedReader(manifestFile)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return properties;
+    }
+
+    private void delete(String path) {
+        Path file = outputDir.resolve(outputFile(path));
+        try {
+            Files.deleteIfExists(file);
+            // remove the page directory too when it's left empty
+            Path dir = file.getParent();
+            if (dir != null && !dir.equals(outputDir) && Files.isDirectory(dir)) {
+                try (var files = Files.list(dir)) {
+                    if (files.findAny().isEmpty()) {
+                        Files.delete(dir);
+                    }
+                }
+            }
+            LOG.infof("Deleted %s which is not generated anymore", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The dir Roq writes the site to: its configured output dir, relative to the build dir unless it is absolute.
+     */
+    static Path outputDir(String roqOutputDir) {
+        Path dir = Path.of(roqOutputDir);
+        return dir.isAbsolute() ? dir : Path.of("target").resolve(dir);
+    }
+
+    // pages are selected as "/blog/slug/" and written to "blog/slug/index.html"
+    static String outputFile(String path) {
+        String file = path.startsWith("/") ? path.substring(1) : path;
+        return file.isEmpty() || file.endsWith("/") ? file + "index.html" : file;
+    }
+}
@@ -0,0 +1,89 @@
+package web.lab.blog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Reads the index pages, knowing where each one starts: the key of the last entry of the page before it.
+ * The links between pages carry that key. For a page asked without it (a typed URL, the static site generator) the
+ * start learned from the page before it is used, or the pages are walked from the closest known one. Each step is a
+ * keyset query of one page, the rows before a page are never scanned to find it.
+ * The CMS changes the entries behind the blog's back, the learned starts are only used while the {@link IndexState}
+ * they were learned from is still the current one.
+ */
+@ApplicationScoped
+public class IndexKeys {
+
+    // page number -> the key of the last entry of the page before it, in the given state
+    private record Starts(IndexState state, Map<Integer, EntryKey> keys) {
+    }
+
+    private volatile Starts starts = new Starts(null, new ConcurrentHashMap<>());
+
+    /**
+     * Returns the page, read after the given key when there's one. A page past the last one has no entries.
+     */
+    public IndexPage page(int number, EntryKey after) {
+        if (after != null && number > 1) {
+            // sent by a client, not learned: a made up key only changes the page it was sent for
+            return BlogEntry.page(number, after);
+        }
+        Starts current = current();
+        if (number <= 1) {
+            return learn(current, BlogEntry.page(1, null));
+        }
+        EntryKey start = current.keys().get(number);
+        if (start != null) {
+            return learn(current, BlogEntry.page(number, start));
+        }
+        IndexPage page = closestKnown(current, number - 1);
+        while (page.number() < number && page.hasNext()) {
+            page = learn(current, BlogEntry.page(page.number() + 1, page.lastKey()));
+        }
+        return page.number() == number ? page : new IndexPage(number, List.of(), false);
+    }
+
+    public IndexPage next(IndexPage page) {
+        return learn(starts, BlogEntry.page(page.number() + 1, page.lastKey()));
+    }
+
+    /**
+     * Forgets where the pages start, when entries are published and move the others to later pages.
+     */
+    public void clear() {
+        starts = new Starts(null, new ConcurrentHashMap<>());
+    }
+
+    // the starts learned from the current state, none when the entries changed since
+    private Starts current() {
+        IndexState state = BlogEntry.indexState();
+        Starts known = starts;
+        if (state.equals(known.state())) {
+            return known;
+        }
+        Starts fresh = new Starts(state, new ConcurrentHashMap<>());
+        starts = fresh;
+        return fresh;
+    }
+
+    private IndexPage closestKnown(Starts current, int number) {
+        for (int known = number; known > 1; known--) {
+            EntryKey start = current.keys().get(known);
+            if (start != null) {
+                return learn(current, BlogEntry.page(known, start));
+            }
+        }
+        return learn(current, BlogEntry.page(1, null));
+    }
+
+    // a page read while the state changes is learned in starts that are dropped already
+    private IndexPage learn(Starts current, IndexPage page) {
+        if (page.hasNext()) {
+            current.keys().put(page.number() + 1, page.lastKey());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,32 @@
+package web.lab.blog;
+
+import java.util.List;
+
+/**
+ * One page of the blog index, pages are numbered from 1.
+ */
+public record IndexPage(int number, List<BlogEntrySummary> entries, boolean hasNext) {
+
+    public boolean hasPrevious() {
+        return number > 1;
+    }
+
+    public String previousPath() {
+        return number == 2 ? "." : path(number - 1);
+    }
+
+    /**
+     * The next page starts after the last entry of this one, the link tells where so it is read from there.
+     */
+    public String nextPath() {
+        return path(number + 1) + "?after=" + lastKey().encode();
+    }
+
+    public EntryKey lastKey() {
+        return EntryKey.of(entries.get(entries.size() - 1));
+    }
+
+    public static String path(int number) {
+        return "page/" + number;
+    }
+}
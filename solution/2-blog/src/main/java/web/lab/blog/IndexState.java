@@ -0,0 +1,10 @@
+package web.lab.blog;
+
+import java.time.Instant;
+
+/**
+ * What the index pages are read from: the published entries, and when the last of them was saved. Entries added,
+ * deleted or saved by the CMS change it, and so do the scheduled entries getting published.
+ */
+public record IndexState(long count, Instant lastUpdated) {
+}
@@ -0,0 +1,47 @@
+package web.lab.blog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+
+/**
+ * Renders blog Markdown to HTML.
+ * Posts rarely change, so the rendered HTML is cached and keyed by the hash of the Markdown it was rendered from.
+ */
+public final class Markdown {
+
+    // The cache is bounded by the total size of the cached HTML (in chars), not by the number of posts
+    private static final long HTML_CACHE_MAX_CHARS = 32 * 1024 * 1024;
+
+    private static final Parser PARSER = Parser.builder().build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
+
+    private static final Cache<String, String> HTML_CACHE = Caffeine.newBuilder()
+            .maximumWeight(HTML_CACHE_MAX_CHARS)
+            .weigher((String hash, String html) -> html.length())
+            .recordStats()
+            .build();
+
+    private Markdown() {
+    }
+
+    public static String toHtml(String markdown) {
+        return HTML_CACHE.get(ContentHash.sha256(markdown), hash -> render(markdown));
+    }
+
+    /**
+     * Renders without going through the cache.
+     */
+    public static String render(String markdown) {
+        return RENDERER.render(PARSER.parse(markdown));
+    }
+
+    /**
+     * Hit and miss counters of the rendered HTML cache.
+     */
+    public static CacheStats htmlCacheStats() {
+        return HTML_CACHE.stats();
+    }
+}
@@ -0,0 +1,58 @@
+package web.lab.blog;
+
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Keeps the rendered pages of the blog, by path, so hot pages are served from their cached (compressed) bytes.
+ * The cache is bounded by the size of the cached bytes and Caffeine evicts with W-TinyLFU, which keeps the frequently
+ * read pages over the recently read ones.
+ */
+@ApplicationScoped
+public class PageCache {
+
+    @ConfigProperty(name = "blog.page-cache.max-size", defaultValue = "64M")
+    MemorySize maxSize;
+
+    private Cache<String, CachedPage> pages;
+
+    @PostConstruct
+    void init() {
+        pages = Caffeine.newBuilder()
+                .maximumWeight(maxSize.asLongValue())
+                .weigher((String path, CachedPage page) -> page.size())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached page at this path if it was rendered from the given version, or renders and caches it.
+     * A page is rendered and compressed once per version: the concurrent requests for it wait for that one.
+     */
+    public CachedPage get(String path, String version, Supplier<String> render) {
+        CachedPage page = pages.getIfPresent(path);
+        if (page != null && page.version().equals(version)) {
+            return page;
+        }
+        return pages.asMap().compute(path, (p, cached) -> cached != null && cached.version().equals(version)
+                ? cached
+                : CachedPage.of(version, render.get()));
+    }
+
+    public void invalidate(String path) {
+        pages.invalidate(path);
+    }
+
+    public CacheStats stats() {
+        return pages.stats();
+    }
+}
@@ -0,0 +1,263 @@
+package web.lab.blog;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Resized copies of the blog entry pictures, in a few fixed widths for srcset.
+ * The originals are uploaded with the CMS to a shared dir, or shipped with the blog, and are several MB and thousands
+ * of pixels wide. A copy is made the first time it is asked for and kept on disk as "sha256-width.ext", named after
+ * the content of the original: a changed picture gets new copies, and an unchanged one keeps its copies across
+ * restarts.
+ */
+@ApplicationScoped
+public class Pictures {
+
+    private static final Logger LOG = Logger.getLogger(Pictures.class);
+
+    // the index shows pictures 100px wide and the blog posts about 300px, twice that for high density screens
+    public static final List<Integer> WIDTHS = List.of(200, 400, 800, 1600);
+
+    static final String ORIGINALS = "web/static/assets/blog/pictures/";
+
+    // plain file names only, so a name can't point out of the pictures dir
+    private static final Pattern NAME = Pattern.compile("[\\w-]+(?:\\.[\\w-]+)*\\.(?:jpe?g|png)",
+            Pattern.CASE_INSENSITIVE);
+
+    // uploaded with the CMS, named after the SHA-256 of their content
+    private static final Pattern UPLOADED = Pattern.compile("([0-9a-f]{64})\\.(?:jpg|png)");
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    // a decoded original takes up to 100MB before subsampling, don't decode too many at once
+    private final Semaphore resizing = new Semaphore(2);
+
+    // name -> hash of the original, the originals don't change while the blog runs
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    @ConfigProperty(name = "blog.pictures.dir", defaultValue = "../pictures")
+    Path dir;
+
+    @ConfigProperty(name = "blog.pictures.cache-dir", defaultValue = "target/pictures")
+    Path cacheDir;
+
+    /**
+     * Whether copies of the picture can be made, other pictures are only served as they are.
+     */
+    public static boolean isResizable(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Whether the picture is named after its content, so its copies never change either.
+     */
+    public static boolean isUploaded(String name) {
+        return name != null && UPLOADED.matcher(name).matches();
+    }
+
+    public static String path(String name, int width) {
+        return "/pictures/" + width + "/" + name;
+    }
+
+    public static String srcset(String name) {
+        return WIDTHS.stream()
+                .map(width -> path(name, width).substring(1) + " " + width + "w")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns the hash of the original picture, or empty if there is no such picture.
+     */
+    public Optional<String> hash(String name) {
+        if (!isResizable(name)) {
+            return Optional.empty();
+        }
+        Matcher uploaded = UPLOADED.matcher(name);
+        if (uploaded.matches()) {
+            return Files.exists(dir.resolve(name)) ? Optional.of(uploaded.group(1)) : Optional.empty();
+        }
+        return Optional.ofNullable(hashes.computeIfAbsent(name, n -> {
+            byte[] original = readOriginal(n);
+            return original != null ? ContentHash.sha256(original) : null;
+        }));
+    }
+
+    /**
+     * Returns the copy of the picture with the given width, made if it is not cached yet, or empty if there is no such
+     * picture or width. Pictures narrower than the width are not enlarged.
+     */
+    public Optional<Path> resized(String name, int width) {
+        if (!WIDTHS.contains(width)) {
+            return Optional.empty();
+        }
+        return hash(name).map(hash -> {
+            Path file = cacheDir.resolve(hash + "-" + width + "." + extension(name));
+            if (!Files.exists(file)) {
+                resize(name, width, file);
+            }
+            return file;
+        });
+    }
+
+    private void resize(String name, int width, Path file) {
+        long start = System.nanoTime();
+        try {
+            resizing.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resizing " + name, e);
+        }
+        try {
+            // another request may have made it while this one was waiting
+            if (Files.exists(file)) {
+                return;
+            }
+            byte[] original = readOriginal(name);
+            if (original == null) {
+                throw new IllegalStateException("Picture " + name + " is gone");
+            }
+            boolean png = extension(name).equals("png");
+            BufferedImage image = scale(read(original, width), width, png);
+            Files.createDirectories(file.getParent());
+            // write next to the copy and move it in place, so a copy is never served half written
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                write(image, png, tmp);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            LOG.infof("Resized %s to %dpx in %dms", name, image.getWidth(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            resizing.release();
+        }
+    }
+
+    /**
+     * Decodes the picture, skipping pixels when it is more than twice as wide as needed: decoding every pixel of a
+     * 6000px picture only to scale it down to 400px is most of the work.
+     */
+    private static BufferedImage read(byte[] original, int width) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported picture format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // keep twice the width, the last steps are scaled down smoothly
+                int subsampling = reader.getWidth(0) / (width * 2);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales down by halves then to the width, a single bilinear step from much bigger would leave pixels out.
+     */
+    static BufferedImage scale(BufferedImage image, int width, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int target = Math.min(width, image.getWidth());
+        BufferedImage current = image;
+        do {
+            int next = Math.max(target, current.getWidth() / 2);
+            current = draw(current, next, type);
+        } while (current.getWidth() > target);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int type) {
+        int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static void write(BufferedImage image, boolean png, Path file) throws IOException {
+        if (png) {
+            ImageIO.write(image, "png", file.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private byte[] readOriginal(String name) {
+        Path uploaded = dir.resolve(name);
+        try {
+            if (Files.exists(uploaded)) {
+                return Files.readAllBytes(uploaded);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (InputStream original = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream(ORIGINALS + name)) {
+            return original != null ? original.readAllBytes() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String extension(String name) {
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return extension.equals("jpeg") ? "jpg" : extension;
+    }
+}
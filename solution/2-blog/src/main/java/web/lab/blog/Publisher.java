@@ -0,0 +1,81 @@
+package web.lab.blog;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+/**
+ * Publishes the scheduled entries: the blog hides entries published after today, and they show up on their day.
+ * At that moment every cached index page is outdated, as the new entries push the others down. The post pages and the
+ * first index pages are rendered again here, so the first readers get them from the cache, and the deeper index
+ * pages are dropped from the cache, to be rendered again when they are read.
+ */
+@ApplicationScoped
+public class Publisher {
+
+    private static final Logger LOG = Logger.getLogger(Publisher.class);
+
+    @ConfigProperty(name = "blog.publisher.warm-index-pages", defaultValue = "3")
+    int warmIndexPages;
+
+    @Inject
+    PageCache pageCache;
+
+    @Inject
+    IndexKeys indexKeys;
+
+    // the entries up to that day are published, the ones after it are still scheduled
+    private volatile LocalDate publishedUntil;
+
+    void start(@Observes StartupEvent event) {
+        publishedUntil = BlogEntry.today();
+    }
+
+    @Scheduled(cron = "{blog.publisher.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void publish() {
+        LocalDate today = BlogEntry.today();
+        LocalDate until = publishedUntil;
+        if (until == null || !today.isAfter(until)) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<BlogEntry> entries = BlogEntry.listPublishedBetween(until, today);
+        publishedUntil = today;
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (BlogEntry entry : entries) {
+            EntryVersion version = new EntryVersion(entry.id, entry.version, entry.updated);
+            pageCache.get(Blog.blogPostPath(entry.slug), version.etag().getValue(),
+                    () -> Blog.Templates.blogPost(entry).render());
+        }
+        // the pages start at other entries now
+        indexKeys.clear();
+        IndexPage page = indexKeys.page(1, null);
+        for (int number = 1; number <= warmIndexPages; number++) {
+            IndexPage warmed = page;
+            pageCache.get(Blog.indexPath(number), Blog.indexVersion(warmed),
+                    () -> Blog.Templates.index(warmed).render());
+            if (!page.hasNext()) {
+                break;
+            }
+            page = indexKeys.next(page);
+        }
+        int pageCount = BlogEntry.pageCount();
+        for (int number = warmIndexPages + 1; number <= pageCount; number++) {
+            pageCache.invalidate(Blog.indexPath(number));
+        }
+        LOG.infof("Published %d scheduled entries and rendered their pages in %dms", entries.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,137 @@
+package web.lab.blog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.qute.TemplateInstance;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Renders the selected pages of the static site concurrently, straight from the templates, and writes them to the
+ * output dir the same way the Roq generator does ("/blog/slug/" to "blog/slug/index.html").
+ * Pages don't depend on each other, so the output is the same whatever order they are rendered in.
+ */
+@ApplicationScoped
+public class SiteGenerator {
+
+    private static final Logger LOG = Logger.getLogger(SiteGenerator.class);
+
+    @ConfigProperty(name = "blog.generator.parallel", defaultValue = "false")
+    boolean parallel;
+
+    // defaults to the number of cores
+    @ConfigProperty(name = "blog.generator.workers")
+    Optional<Integer> workers;
+
+    @ConfigProperty(name = "quarkus.roq.generator.output-dir", defaultValue = "roq")
+    String roqOutputDir;
+
+    @Inject
+    Pictures pictures;
+
+    @Inject
+    IndexKeys indexKeys;
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void generate(List<String> paths) {
+        int workerCount = workers.orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<?>> pages = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                pages.add(executor.submit(() -> generate(path)));
+            }
+            // wait for all pages in selection order, so the first failing page is always the one reported
+            for (int i = 0; i < pages.size(); i++) {
+                try {
+                    pages.get(i).get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Could not generate " + paths.get(i), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating the site", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.infof("Generated %d pages with %d workers in %dms", paths.size(), workerCount,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void generate(String path) {
+        if (path.startsWith("/pictures/")) {
+            copyPicture(path);
+        } else {
+            write(path, render(path));
+        }
+    }
+
+    private String render(String path) {
+        return QuarkusTransaction.requiringNew().call(() -> template(path).render());
+    }
+
+    private TemplateInstance template(String path) {
+        if (path.startsWith("/blog/")) {
+            String slug = path.substring("/blog/".length()).replace("/", "");
+            return Blog.Templates.blogPost(BlogEntry.getBySlug(slug)
+                    .orElseThrow(() -> new IllegalArgumentException("No blog entry for " + path)));
+        }
+        if (path.startsWith("/page/")) {
+            int page = Integer.parseInt(path.substring("/page/".length()).replace("/", ""));
+            // where it starts was learned while the pages were selected
+            return Blog.Templates.index(indexKeys.page(page, null));
+        }
+        if (path.equals("/")) {
+            return Blog.Templates.index(indexKeys.page(1, null));
+        }
+        throw new IllegalArgumentException("Don't know how to render " + path);
+    }
+
+    private void copyPicture(String path) {
+        // "/pictures/width/name"
+        String[] parts = path.split("/");
+        Path resized = pictures.resized(parts[3], Integer.parseInt(parts[2]))
+                .orElseThrow(() -> new IllegalArgumentException("No picture for " + path));
+        Path file = GenerationManifest.outputDir(roqOutputDir).resolve(GenerationManifest.outputFile(path));
+        try {
+            Files.createDirectories(file.getParent());
+            Files.copy(resized, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(String path, String html) {
+        Path file = GenerationManifest.outputDir(roqOutputDir).resolve(GenerationManifest.outputFile(path));
+        try {
+            Files.createDirectories(file.getParent());
+            // write next to the page and move it in place, so a page is never seen half written
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, html, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
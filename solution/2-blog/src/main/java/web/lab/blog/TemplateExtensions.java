@@ -4,13 +4,6 @@ import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.Locale;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.ast.Node;
-
 import io.quarkus.qute.TemplateExtension;
 
 /**
@@ -19,18 +12,21 @@ import io.quarkus.qute.TemplateExtension;
 @TemplateExtension
 public class TemplateExtensions {
 
-    private static final Parser PARSER = Parser.builder().build();
-    private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
-
     public static String mdToHtml(String string) {
-        Node document = PARSER.parse(string);
-        return RENDERER.render(document);
+        return Markdown.toHtml(string);
+    }
+
+    /**
+     * The picture resized to the width, or the original when it can't be resized.
+     */
+    public static String pictureSrc(String picture, int width) {
+        return Pictures.isResizable(picture)
+                ? Pictures.path(picture, width).substring(1)
+                : Pictures.ORIGINALS.substring("web/".length()) + picture;
     }
 
-    public static String toAbstract(BlogEntry entry) {
-        Document doc = Jsoup.parse(mdToHtml(entry.content));
-        String text = doc.body().text();
-        return text.length() > 400 ? text.substring(0, 400) + "..." : text;
+    public static String pictureSrcset(String picture) {
+        return Pictures.isResizable(picture) ? Pictures.srcset(picture) : "";
     }
 
     public static String monthStr(LocalDate date) {
@@ -0,0 +1,33 @@
+package web.lab.comments;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Runs what must only happen to committed comments: a rolled back comment is never cached nor streamed.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(TransactionSynchronizationRegistry transactions, Runnable action) {
+        if (transactions.getTransactionKey() == null) {
+            action.run();
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -1,14 +1,22 @@
 package web.lab.comments;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+// The comments of a ref are read newest first, one page at a time
+@Table(indexes = @Index(name = "comment_ref_time_id", columnList = "ref, time, id"))
 public class Comment extends PanacheEntity {
+    private static final Sort NEWEST_FIRST = Sort.by("time", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
     @NotBlank(message="Ref may not be blank")
     public String ref;
     public LocalDateTime time;
@@ -27,7 +35,15 @@ public class Comment extends PanacheEntity {
     public Comment() {
     }
 
-    public static List<Comment> findRefComments(String ref){
-        return list("ref", Sort.by("time", Sort.Direction.Descending),ref);
+    /**
+     * Returns up to limit comments of the ref, newest first, starting after the cursor (from the newest when there's
+     * none). The id breaks ties between comments posted at the same time, so pages never overlap.
+     */
+    public static List<Comment> findRefPage(String ref, CommentCursor after, int limit) {
+        PanacheQuery<Comment> query = after == null
+                ? find("ref", NEWEST_FIRST, ref)
+                : find("ref = ?1 and (time < ?2 or (time = ?2 and id < ?3))", NEWEST_FIRST,
+                        ref, after.time(), after.id());
+        return query.range(0, limit - 1).list();
     }
 }
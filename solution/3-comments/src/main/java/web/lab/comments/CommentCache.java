@@ -0,0 +1,123 @@
+package web.lab.comments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * The first page of comments of the most read refs, kept serialized: a hit costs no query and no JSON writing.
+ * New comments are written through, once committed: they are added to the cached page of their ref, which is
+ * serialized again, so a thread being commented stays cached.
+ */
+@ApplicationScoped
+public class CommentCache {
+
+    // newest first, as the pages are
+    private static final Comparator<Comment> NEWEST_FIRST = Comparator.comparing((Comment comment) -> comment.time)
+            .thenComparing(comment -> comment.id)
+            .reversed();
+
+    /**
+     * A cached page, with the comments it was serialized from to add the next ones to.
+     */
+    public record CachedPage(CommentPage page, byte[] json) {
+    }
+
+    public record Stats(long hits, long misses, double hitRate, long evictions, long size) {
+    }
+
+    @ConfigProperty(name = "comments.cache.max-refs", defaultValue = "1000")
+    long maxRefs;
+
+    @ConfigProperty(name = "comments.cache.ttl", defaultValue = "10M")
+    Duration ttl;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    private Cache<String, CachedPage> pages;
+
+    @PostConstruct
+    void init() {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maxRefs)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the first page of the ref, read and serialized on a miss.
+     */
+    public CachedPage firstPage(String ref) {
+        return pages.get(ref, r -> serialize(CommentPage.read(r, null, CommentResource.DEFAULT_PAGE_SIZE)));
+    }
+
+    /**
+     * Adds the comment to the cached page of its ref once the transaction commits, a rolled back comment is never
+     * served. A page being loaded meanwhile is waited for, so the comment is never missed.
+     */
+    public void addAfterCommit(Comment comment) {
+        AfterCommit.run(transactions, () -> add(comment));
+    }
+
+    private void add(Comment comment) {
+        pages.asMap().computeIfPresent(comment.ref, (ref, cached) -> {
+            List<Comment> comments = cached.page().comments();
+            // already there when the page was loaded after the commit
+            if (comments.stream().anyMatch(c -> Objects.equals(c.id, comment.id))) {
+                return cached;
+            }
+            List<Comment> updated = new ArrayList<>(comments.size() + 1);
+            updated.addAll(comments);
+            int index = 0;
+            while (index < updated.size() && NEWEST_FIRST.compare(updated.get(index), comment) < 0) {
+                index++;
+            }
+            boolean full = updated.size() == CommentResource.DEFAULT_PAGE_SIZE;
+            if (index == updated.size() && (full || cached.page().nextCursor() != null)) {
+                // older than the whole page, it's on a next one
+                return cached;
+            }
+            updated.add(index, comment);
+            String nextCursor = cached.page().nextCursor();
+            if (updated.size() > CommentResource.DEFAULT_PAGE_SIZE) {
+                updated.remove(updated.size() - 1);
+                nextCursor = CommentCursor.after(updated.get(updated.size() - 1)).encode();
+            }
+            return serialize(new CommentPage(List.copyOf(updated), nextCursor));
+        });
+    }
+
+    public Stats stats() {
+        CacheStats stats = pages.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+                pages.estimatedSize());
+    }
+
+    private CachedPage serialize(CommentPage page) {
+        try {
+            return new CachedPage(page, mapper.writeValueAsBytes(page.comments()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the comments", e);
+        }
+    }
+}
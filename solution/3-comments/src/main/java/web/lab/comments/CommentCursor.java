@@ -0,0 +1,36 @@
+package web.lab.comments;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Where a page of comments ends: comments are listed newest first, by (time, id), and the next page starts after the
+ * last comment of the previous one. Sent to clients as an opaque string.
+ */
+public record CommentCursor(LocalDateTime time, Long id) {
+
+    public static CommentCursor after(Comment comment) {
+        return new CommentCursor(comment.time, comment.id);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + "_" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor sent back by a client, throws IllegalArgumentException when it was not made by {@link #encode()}.
+     */
+    public static CommentCursor parse(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('_');
+            return new CommentCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.valueOf(decoded.substring(separator + 1)));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+        }
+    }
+}
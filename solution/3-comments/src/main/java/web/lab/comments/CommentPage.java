@@ -0,0 +1,19 @@
+package web.lab.comments;
+
+import java.util.List;
+
+/**
+ * A page of the comments of a ref, newest first, with the cursor of the next page (null on the last one).
+ */
+public record CommentPage(List<Comment> comments, String nextCursor) {
+
+    public static CommentPage read(String ref, CommentCursor after, int size) {
+        // one more than a page, to know if there is a next one
+        List<Comment> comments = Comment.findRefPage(ref, after, size + 1);
+        if (comments.size() <= size) {
+            return new CommentPage(comments, null);
+        }
+        List<Comment> page = List.copyOf(comments.subList(0, size));
+        return new CommentPage(page, CommentCursor.after(page.get(size - 1)).encode());
+    }
+}
@@ -1,29 +1,102 @@
 package web.lab.comments;
 
-import jakarta.transaction.Transactional;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
 import java.time.LocalDateTime;
-import java.util.List;
+import org.jboss.resteasy.reactive.RestResponse;
 
 @Path("/comment")
 public class CommentResource {
 
+    // The cursor of the next page, absent on the last page
+    public static final String NEXT_CURSOR = "Next-Cursor";
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Inject
+    CommentCache commentCache;
+
+    @Inject
+    CommentStream commentStream;
+
+    @Inject
+    CommentWriter commentWriter;
+
     @GET
     @Path("/{ref}")
-    public List<Comment> comments(String ref) {
-        return Comment.findRefComments(ref);
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response comments(String ref, @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit) {
+        if ((cursor == null || cursor.isEmpty()) && limit == DEFAULT_PAGE_SIZE) {
+            // the first page is what almost every reader asks for
+            CommentCache.CachedPage cached = commentCache.firstPage(ref);
+            return page(Response.ok(cached.json()), cached.page().nextCursor());
+        }
+        CommentCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = CommentCursor.parse(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+        }
+        CommentPage page = CommentPage.read(ref, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return page(Response.ok(page.comments()), page.nextCursor());
     }
-    
+
+    /**
+     * The comments of the ref posted from now on, as server-sent "comment" events with the comment as JSON data.
+     */
+    @GET
+    @Path("/{ref}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public Multi<OutboundSseEvent> stream(String ref) {
+        return commentStream.subscribe(ref);
+    }
+
+    private static Response page(Response.ResponseBuilder response, String nextCursor) {
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR, nextCursor);
+        }
+        return response.build();
+    }
+
+    /**
+     * Adds the comment and answers it as stored, with its id and time, for the client to add it to the comments it
+     * shows: the thread is not read again on every write.
+     */
     @POST
-    @Transactional
-    public List<Comment> addComment(Comment comment) {
+    public RestResponse<Comment> addComment(Comment comment) {
         if(comment.time == null){
             comment.time = LocalDateTime.now();
         }
-        comment.persist();
-        
-        return comments(comment.ref);
+        commentWriter.add(comment);
+
+        return RestResponse.status(RestResponse.Status.CREATED, comment);
+    }
+
+    @GET
+    @Path("/cache/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public CommentCache.Stats cacheStats() {
+        return commentCache.stats();
+    }
+
+    @GET
+    @Path("/stream/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public CommentStream.Stats streamStats() {
+        return commentStream.stats();
     }
 }
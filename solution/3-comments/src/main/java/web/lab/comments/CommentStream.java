@@ -0,0 +1,154 @@
+package web.lab.comments;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+
+/**
+ * Pushes the new comments of a ref to the readers subscribed to it, as server-sent events.
+ * A subscriber is only a registered emitter, no thread waits on it: an idle connection costs its socket and a few
+ * objects. Each new comment is serialized once, and handed to every subscriber of its ref from a worker thread, not
+ * the one of the request which posted it. A subscriber which doesn't keep up gets its events buffered, up to a
+ * bound, then its stream is closed: the browser reconnects and reads the missed comments again.
+ */
+@ApplicationScoped
+public class CommentStream {
+
+    private static final Logger LOG = Logger.getLogger(CommentStream.class);
+
+    @ConfigProperty(name = "comments.stream.buffer-size", defaultValue = "16")
+    int bufferSize;
+
+    // idle connections are closed by proxies, a comment line now and then keeps them open
+    @ConfigProperty(name = "comments.stream.heartbeat", defaultValue = "30S")
+    Duration heartbeat;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Sse sse;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ScheduledFuture<?> heartbeats;
+
+    public record Stats(int subscribers, int refs) {
+    }
+
+    private static final class Subscriber {
+        private final MultiEmitter<? super OutboundSseEvent> emitter;
+
+        Subscriber(MultiEmitter<? super OutboundSseEvent> emitter) {
+            this.emitter = emitter;
+        }
+
+        // events of different comments may be sent at the same time, a stream takes them one at a time
+        synchronized void send(OutboundSseEvent event) {
+            emitter.emit(event);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        OutboundSseEvent ping = sse.newEventBuilder().comment("ping").build();
+        heartbeats = Infrastructure.getDefaultWorkerPool().scheduleAtFixedRate(
+                () -> subscribers.values().forEach(refSubscribers -> refSubscribers.forEach(s -> s.send(ping))),
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        heartbeats.cancel(false);
+        subscribers.values().forEach(refSubscribers -> refSubscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    /**
+     * Returns the stream of the comments of the ref posted from now on.
+     */
+    public Multi<OutboundSseEvent> subscribe(String ref) {
+        return Multi.createFrom().<OutboundSseEvent> emitter(emitter -> {
+            Subscriber subscriber = new Subscriber(emitter);
+            // added within the compute, an unsubscribe of the last reader can't remove the set in between
+            subscribers.compute(ref, (r, refSubscribers) -> {
+                Set<Subscriber> added = refSubscribers != null ? refSubscribers : ConcurrentHashMap.newKeySet();
+                added.add(subscriber);
+                return added;
+            });
+            subscriberCount.incrementAndGet();
+            emitter.onTermination(() -> unsubscribe(ref, subscriber));
+        }, BackPressureStrategy.IGNORE)
+                // the events the connection could not write yet, a slow reader is dropped once it is full
+                .onOverflow().buffer(bufferSize)
+                .onFailure().invoke(failure -> LOG.debugf("Closing a slow comment stream of %s: %s", ref,
+                        failure.getMessage()))
+                .onFailure().recoverWithCompletion();
+    }
+
+    private void unsubscribe(String ref, Subscriber subscriber) {
+        subscribers.computeIfPresent(ref, (r, refSubscribers) -> {
+            refSubscribers.remove(subscriber);
+            return refSubscribers.isEmpty() ? null : refSubscribers;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    public Stats stats() {
+        return new Stats(subscriberCount.get(), subscribers.size());
+    }
+
+    /**
+     * Sends the comment to the subscribers of its ref, once it is committed.
+     */
+    public void publishAfterCommit(Comment comment) {
+        AfterCommit.run(transactions, () -> publish(comment));
+    }
+
+    private void publish(Comment comment) {
+        Set<Subscriber> refSubscribers = subscribers.get(comment.ref);
+        if (refSubscribers == null) {
+            return;
+        }
+        OutboundSseEvent event;
+        try {
+            event = sse.newEventBuilder()
+                    .name("comment")
+                    .id(String.valueOf(comment.id))
+                    // already JSON, written as it is
+                    .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                    .data(mapper.writeValueAsString(comment))
+                    .build();
+        } catch (JsonProcessingException e) {
+            // after the commit, the comment is stored: its readers only miss the event
+            LOG.errorf(e, "Could not serialize comment %d of %s, it is not streamed", comment.id, comment.ref);
+            return;
+        }
+        Infrastructure.getDefaultWorkerPool().execute(() -> refSubscribers.forEach(s -> s.send(event)));
+    }
+}
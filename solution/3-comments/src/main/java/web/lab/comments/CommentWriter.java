@@ -0,0 +1,101 @@
+package web.lab.comments;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+/**
+ * Stores the posted comments, each in its own transaction, or with group commit when
+ * {@code comments.group-commit.enabled} is set: the comments posted at about the same time are inserted together,
+ * as one JDBC batch in one transaction, and every poster waits for the commit of its batch. Under bursts the database
+ * flushes its log once per batch rather than once per comment.
+ */
+@ApplicationScoped
+public class CommentWriter {
+
+    @ConfigProperty(name = "comments.group-commit.enabled", defaultValue = "false")
+    boolean groupCommitEnabled;
+
+    @ConfigProperty(name = "comments.group-commit.max-batch-size", defaultValue = "64")
+    int maxBatchSize;
+
+    // how long the first comment of a batch waits for others, none by default: under load the next batch fills up
+    // while one is committed, waiting only adds latency
+    @ConfigProperty(name = "comments.group-commit.max-delay", defaultValue = "0")
+    Duration maxDelay;
+
+    @Inject
+    CommentCache commentCache;
+
+    @Inject
+    CommentStream commentStream;
+
+    @Inject
+    Validator validator;
+
+    private GroupCommit<Comment> groupCommit;
+
+    @PostConstruct
+    void init() {
+        if (groupCommitEnabled) {
+            groupCommit = new GroupCommit<>("comment-group-commit", maxBatchSize, maxDelay, this::insertAll);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+    }
+
+    /**
+     * Stores the comment, and returns once it is committed.
+     */
+    public void add(Comment comment) {
+        if (groupCommit == null) {
+            insertEach(comment);
+            return;
+        }
+        // checked before it is queued, an invalid comment would roll back the whole batch
+        Set<ConstraintViolation<Comment>> violations = validator.validate(comment);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        try {
+            groupCommit.submit(comment).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+
+    void insertEach(Comment comment) {
+        QuarkusTransaction.requiringNew().run(() -> insert(comment));
+    }
+
+    void insertAll(List<Comment> comments) {
+        // the inserts are flushed at commit, in batches of quarkus.hibernate-orm.jdbc.statement-batch-size
+        QuarkusTransaction.requiringNew().run(() -> comments.forEach(this::insert));
+    }
+
+    private void insert(Comment comment) {
+        comment.persist();
+        commentCache.addAfterCommit(comment);
+        commentStream.publishAfterCommit(comment);
+    }
+}
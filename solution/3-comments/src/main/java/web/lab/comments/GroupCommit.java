@@ -0,0 +1,129 @@
+package web.lab.comments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Writes the items submitted by concurrent callers together: a single thread takes the queued items, up to the max
+ * batch size, and hands them all to the writer, which commits them in one transaction. Each caller's future completes
+ * when its batch is committed, or fails with it.
+ * While a batch is committed the next one fills up, so the busier it is the bigger the batches, and the fewer commits
+ * per item. The first item of a batch can also wait up to the max delay for others, which only pays off when the
+ * items come in slower than a batch is committed.
+ */
+public class GroupCommit<T> implements AutoCloseable {
+
+    private record Pending<T>(T item, CompletableFuture<T> committed) {
+    }
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Consumer<List<T>> writer;
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    // submitting is shared, closing is exclusive: once closed, nothing is queued that the thread would not write
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public GroupCommit(String name, int maxBatchSize, Duration maxDelay, Consumer<List<T>> writer) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The max batch size must be at least 1: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.writer = writer;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the item for the next batch, the returned future completes with it once that batch is committed.
+     * Throws IllegalStateException once closed.
+     */
+    public CompletableFuture<T> submit(T item) {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Closed, no more items are written");
+            }
+            CompletableFuture<T> committed = new CompletableFuture<>();
+            queue.add(new Pending<>(item, committed));
+            return committed;
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        // nothing is queued once closed is seen, an empty queue then stays empty
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                // what is already queued joins without waiting, then the others have until the deadline
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize && maxDelayNanos > 0) {
+                    Pending<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // nothing interrupts this thread but a shutdown: what is taken is still written, and the rest after it
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            items.add(pending.item());
+        }
+        try {
+            writer.accept(items);
+        } catch (Throwable failure) {
+            batch.forEach(pending -> pending.committed().completeExceptionally(failure));
+            return;
+        }
+        batch.forEach(pending -> pending.committed().complete(pending.item()));
+    }
+
+    /**
+     * Stops taking items, writes the queued ones and waits for the last batch to be committed.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import '@github/relative-time-element';
 declare const SERVER_URL: string; // This is defined through web-bundler envs in application.properties
 
 interface Comment {
+    id?: number;
     ref: string;
     name: string;
     comment: string;
@@ -27,6 +28,10 @@ class CommentBox extends LitElement {
     @state()
     private comments: Comment[] = [];
 
+    // the cursor of the next page of (older) comments, none when they are all loaded
+    @state()
+    private nextCursor: string | null = null;
+
     @state()
     private name: string = "";
 
@@ -35,9 +40,19 @@ class CommentBox extends LitElement {
 
     private md = new MarkdownIt({breaks: true});
 
+    // the comments posted by the other readers while this one reads
+    private stream: EventSource | null = null;
+
     connectedCallback() {
         super.connectedCallback();
-        this.fetchAllComments();
+        this.fetchComments();
+        this.openStream();
+    }
+
+    disconnectedCallback() {
+        super.disconnectedCallback();
+        this.stream?.close();
+        this.stream = null;
     }
 
     render() {
@@ -90,6 +105,7 @@ class CommentBox extends LitElement {
                         </div>
                     </div>`
               )}
+              ${this.nextCursor ? html`<button class="button more" @click="${this.loadMoreComments}">Load more comments</button>` : ''}
             `;
         }
     }
@@ -99,10 +115,43 @@ class CommentBox extends LitElement {
         return html`${unsafeHTML(htmlContent)}`;
     }
 
-    private fetchAllComments(){
+    private fetchComments(){
         fetch(`${this.serverUrl}/comment/${this.ref}`)
-            .then(response => response.json())
-            .then(response => this.comments = response as Comment[]);
+            .then(response => this.readPage(response))
+            .then(page => this.comments = page);
+    }
+
+    private loadMoreComments(){
+        fetch(`${this.serverUrl}/comment/${this.ref}?cursor=${encodeURIComponent(this.nextCursor)}`)
+            .then(response => this.readPage(response))
+            .then(page => this.comments = [...this.comments, ...page]);
+    }
+
+    private openStream() {
+        let reconnecting = false;
+        this.stream = new EventSource(`${this.serverUrl}/comment/${this.ref}/stream`);
+        this.stream.addEventListener('comment', (e: MessageEvent) => this.addComments([JSON.parse(e.data) as Comment]));
+        // the server closes a stream which falls behind, the comments missed until the browser reconnects are read again
+        this.stream.addEventListener('error', () => reconnecting = true);
+        this.stream.addEventListener('open', () => {
+            if (reconnecting) {
+                reconnecting = false;
+                fetch(`${this.serverUrl}/comment/${this.ref}`)
+                    .then(response => response.json())
+                    .then(page => this.addComments(page));
+            }
+        });
+    }
+
+    // newer comments go first, the ones already shown are not added twice
+    private addComments(added: Comment[]) {
+        const shown = new Set(this.comments.map(comment => comment.id));
+        this.comments = [...added.filter(comment => !shown.has(comment.id)), ...this.comments];
+    }
+
+    private readPage(response: Response): Promise<Comment[]> {
+        this.nextCursor = response.headers.get('Next-Cursor');
+        return response.json();
     }
 
     private postComment() {
@@ -120,7 +169,7 @@ class CommentBox extends LitElement {
         })
         .then(response => response.json())
         .then(response => {
-                this.comments = response as Comment[];
+                this.addComments([response as Comment]);
                 this.clear();
             }
         );
@@ -187,6 +236,11 @@ class CommentBox extends LitElement {
             cursor: pointer;
         }
 
+        .more {
+            background-color: gray;
+            padding: 10px 32px;
+        }
+
         markdown-toolbar {
             display: flex;
             gap: 10px;
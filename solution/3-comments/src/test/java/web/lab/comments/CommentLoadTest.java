@@ -0,0 +1,86 @@
+package web.lab.comments;
+
+import io.quarkus.logging.Log;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Posts comments from concurrent posters through the two ways {@link CommentWriter} stores them, on Postgres with
+ * durable commits: each comment in its own transaction, and with group commit, for every max delay. The throughputs
+ * are logged, with the ratio to one commit per comment, nothing is asserted on timings.
+ * A few thousand flushed commits: only run with {@code mvn test -Dload}.
+ */
+@Tag("load")
+@QuarkusTest
+@TestProfile(CommentLoadTest.DurableCommitsProfile.class)
+class CommentLoadTest {
+
+    private static final int POSTERS = 32;
+    private static final int COMMENTS_PER_POSTER = 100;
+    private static final int MAX_BATCH_SIZE = 64;
+
+    @Inject
+    CommentWriter commentWriter;
+
+    @Test
+    void testGroupCommitThroughput() throws Exception {
+        // warms up the code and the connection pool
+        throughput("load-warmup", commentWriter::insertEach);
+
+        double commitEach = throughput("load-each", commentWriter::insertEach);
+        Log.infof("One commit per comment: %.0f comments/s", commitEach);
+        for (Duration maxDelay : List.of(Duration.ZERO, Duration.ofMillis(1), Duration.ofMillis(5))) {
+            try (GroupCommit<Comment> groupCommit = new GroupCommit<>("load-test-group-commit", MAX_BATCH_SIZE,
+                    maxDelay, commentWriter::insertAll)) {
+                double grouped = throughput("load-grouped-" + maxDelay.toMillis(),
+                        comment -> groupCommit.submit(comment).join());
+                Log.infof("Group commit, max delay %dms: %.0f comments/s (x%.1f)", maxDelay.toMillis(), grouped,
+                        grouped / commitEach);
+            }
+        }
+    }
+
+    // comments per second
+    private static double throughput(String ref, Consumer<Comment> add) throws Exception {
+        ExecutorService posters = Executors.newFixedThreadPool(POSTERS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> posted = new ArrayList<>();
+            for (int poster = 0; poster < POSTERS; poster++) {
+                posted.add(posters.submit(() -> {
+                    for (int i = 0; i < COMMENTS_PER_POSTER; i++) {
+                        add.accept(new Comment(ref, LocalDateTime.now(), "poster", "Comment " + i));
+                    }
+                }));
+            }
+            for (Future<?> future : posted) {
+                future.get();
+            }
+            return POSTERS * COMMENTS_PER_POSTER / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            posters.shutdownNow();
+        }
+    }
+
+    public static class DurableCommitsProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // a commit waits for the log to be flushed to the disk, as in production
+            return Map.of("quarkus.datasource.devservices.command", "postgres -c fsync=on -c synchronous_commit=on",
+                    "comments.group-commit.max-batch-size", String.valueOf(MAX_BATCH_SIZE));
+        }
+    }
+}
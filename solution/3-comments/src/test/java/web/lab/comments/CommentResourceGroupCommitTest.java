@@ -0,0 +1,19 @@
+package web.lab.comments;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import java.util.Map;
+
+@QuarkusTest
+@TestProfile(CommentResourceGroupCommitTest.GroupCommitProfile.class)
+class CommentResourceGroupCommitTest extends CommentResourceTest {
+    // Execute the same tests with the comments written by group commit.
+
+    public static class GroupCommitProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("comments.group-commit.enabled", "true");
+        }
+    }
+}
@@ -1,11 +1,25 @@
 package web.lab.comments;
 
 import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
 import io.restassured.http.ContentType;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.MethodOrderer;
@@ -24,12 +38,12 @@ class CommentResourceTest {
                 .post("/comment")
             .then()
                 .log().all()
-                .statusCode(200)
-                .body("", hasSize(1))
-                .body("[0].id", equalTo(1))
-                .body("[0].ref", equalTo("unittest"))
-                .body("[0].name", equalTo("tester"))   
-                .body("[0].comment", equalTo("I an just testing"));
+                .statusCode(201)
+                .body("id", equalTo(1))
+                .body("ref", equalTo("unittest"))
+                .body("name", equalTo("tester"))
+                .body("comment", equalTo("I an just testing"))
+                .body("time", notNullValue());
     }
 
     @Test @Order(2)
@@ -47,8 +61,141 @@ class CommentResourceTest {
                 .body("[0].name", equalTo("tester"))   
                 .body("[0].comment", equalTo("I an just testing"));
     }
-    
-    
+
+    @Test @Order(3)
+    void testGetCommentsPages() {
+        for (int i = 1; i <= 3; i++) {
+            given()
+                .when()
+                    .body(PAGED_COMMENT.formatted(i))
+                    .contentType(ContentType.JSON)
+                    .post("/comment")
+                .then()
+                    .statusCode(201);
+        }
+        String cursor = given()
+            .when()
+                .accept(ContentType.JSON)
+                .queryParam("limit", 2)
+                .get("/comment/pagedtest")
+            .then()
+                .log().all()
+                .statusCode(200)
+                .body("", hasSize(2))
+                .body("[0].comment", equalTo("Comment 3"))
+                .body("[1].comment", equalTo("Comment 2"))
+                .header("Next-Cursor", notNullValue())
+                .extract().header("Next-Cursor");
+        given()
+            .when()
+                .accept(ContentType.JSON)
+                .queryParam("limit", 2)
+                .queryParam("cursor", cursor)
+                .get("/comment/pagedtest")
+            .then()
+                .log().all()
+                .statusCode(200)
+                .body("", hasSize(1))
+                .body("[0].comment", equalTo("Comment 1"))
+                .header("Next-Cursor", nullValue());
+    }
+
+    @Test @Order(4)
+    void testGetCommentsInvalidCursor() {
+        given()
+            .when()
+                .queryParam("cursor", "not-a-cursor")
+                .get("/comment/pagedtest")
+            .then()
+                .statusCode(400);
+    }
+
+    @Test @Order(5)
+    void testCachedCommentsAreWrittenThrough() {
+        given()
+            .when()
+                .get("/comment/pagedtest")
+            .then()
+                .statusCode(200)
+                .body("", hasSize(3));
+        given()
+            .when()
+                .body(PAGED_COMMENT.formatted(4))
+                .contentType(ContentType.JSON)
+                .post("/comment")
+            .then()
+                .statusCode(201);
+        given()
+            .when()
+                .get("/comment/pagedtest")
+            .then()
+                .log().all()
+                .statusCode(200)
+                .body("", hasSize(4))
+                .body("[0].comment", equalTo("Comment 4"));
+        given()
+            .when()
+                .get("/comment/cache/stats")
+            .then()
+                .statusCode(200)
+                .body("hits", greaterThanOrEqualTo(1));
+    }
+
+
+    @Test @Order(6)
+    void testStreamPushesCommittedComments() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(RestAssured.baseURI + ":" + RestAssured.port + "/comment/streamtest/stream"))
+                .header("Accept", "text/event-stream")
+                .build();
+        CompletableFuture<HttpResponse<Stream<String>>> response = HttpClient.newHttpClient()
+                .sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (given().get("/comment/stream/stats").jsonPath().getInt("subscribers") < 1) {
+                Thread.sleep(50);
+            }
+        });
+        // rolled back, never streamed
+        given()
+            .when()
+                .body(STREAMED_COMMENT.formatted(""))
+                .contentType(ContentType.JSON)
+                .post("/comment")
+            .then()
+                .statusCode(greaterThanOrEqualTo(400));
+        given()
+            .when()
+                .body(STREAMED_COMMENT.formatted("tester"))
+                .contentType(ContentType.JSON)
+                .post("/comment")
+            .then()
+                .statusCode(201);
+        String data = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (Stream<String> lines = response.get().body()) {
+                return lines.filter(line -> line.startsWith("data:")).findFirst().orElseThrow();
+            }
+        });
+        assertThat(data, containsString("\"name\":\"tester\""));
+        assertThat(data, containsString("Streamed comment"));
+    }
+
+    private static final String STREAMED_COMMENT = """
+                                                   {
+                                                     "ref": "streamtest",
+                                                     "name": "%s",
+                                                     "comment": "Streamed comment"
+                                                   }
+                                                   """;
+
+    private static final String PAGED_COMMENT = """
+                                                {
+                                                  "ref": "pagedtest",
+                                                  "time": "2024-06-0%1$sT10:00:00",
+                                                  "name": "tester",
+                                                  "comment": "Comment %1$s"
+                                                }
+                                                """;
+
     private static final String TEST_COMMENT = """
                                                {
                                                  "ref": "unittest",
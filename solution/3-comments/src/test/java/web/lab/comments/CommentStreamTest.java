@@ -0,0 +1,50 @@
+package web.lab.comments;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@QuarkusTest
+class CommentStreamTest {
+
+    @Inject
+    CommentStream commentStream;
+
+    @Test
+    void testPublishedCommentIsStreamed() {
+        AssertSubscriber<OutboundSseEvent> reader = commentStream.subscribe("streamed")
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        // outside of a transaction, published right away
+        commentStream.publishAfterCommit(comment("streamed", 1));
+        OutboundSseEvent event = reader.awaitItems(1, Duration.ofSeconds(10)).getItems().get(0);
+        assertThat(event.getName(), equalTo("comment"));
+        assertThat(event.getId(), equalTo("1"));
+        assertThat((String) event.getData(), containsString("\"comment\":\"Comment 1\""));
+        reader.cancel();
+    }
+
+    @Test
+    void testSlowSubscriberIsClosed() {
+        // reads nothing, the events pile up in its buffer
+        AssertSubscriber<OutboundSseEvent> slow = commentStream.subscribe("overflow")
+                .subscribe().withSubscriber(AssertSubscriber.create(0));
+        for (int i = 1; i <= 100; i++) {
+            commentStream.publishAfterCommit(comment("overflow", i));
+        }
+        slow.awaitCompletion(Duration.ofSeconds(10));
+    }
+
+    private static Comment comment(String ref, long id) {
+        Comment comment = new Comment(ref, LocalDateTime.now(), "tester", "Comment " + id);
+        comment.id = id;
+        return comment;
+    }
+}
@@ -0,0 +1,181 @@
+package web.lab.comments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitTest {
+
+    @Test
+    void testItemsQueuedDuringACommitAreWrittenTogether() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        try (GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 64, Duration.ZERO, items -> {
+            batches.add(List.copyOf(items));
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+        })) {
+            CompletableFuture<Integer> first = groupCommit.submit(0);
+            await(firstBatchStarted);
+            List<CompletableFuture<Integer>> queued = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                queued.add(groupCommit.submit(i));
+            }
+            releaseFirstBatch.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS), equalTo(0));
+            for (int i = 1; i <= 10; i++) {
+                assertThat(queued.get(i - 1).get(10, TimeUnit.SECONDS), equalTo(i));
+            }
+        }
+        assertThat(batches, contains(List.of(0), List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+    }
+
+    @Test
+    void testBatchesAreCutAtTheMaxSize() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        try (GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 4, Duration.ZERO, items -> {
+            batches.add(List.copyOf(items));
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+        })) {
+            groupCommit.submit(0);
+            await(firstBatchStarted);
+            CompletableFuture<Integer> last = null;
+            for (int i = 1; i <= 10; i++) {
+                last = groupCommit.submit(i);
+            }
+            releaseFirstBatch.countDown();
+            last.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(batches.stream().map(List::size).toList(), everyItem(lessThanOrEqualTo(4)));
+        assertThat(batches.stream().mapToInt(List::size).sum(), equalTo(11));
+    }
+
+    @Test
+    void testFirstItemWaitsForOthersUpToTheMaxDelay() throws Exception {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        try (GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 64, Duration.ofSeconds(1),
+                items -> batches.add(List.copyOf(items)))) {
+            CompletableFuture<Integer> first = groupCommit.submit(1);
+            CompletableFuture<Integer> second = groupCommit.submit(2);
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(batches, contains(List.of(1, 2)));
+    }
+
+    @Test
+    void testFailedBatchFailsAllItsItems() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("rolled back");
+        try (GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 64, Duration.ZERO, items -> {
+            if (items.contains(0)) {
+                firstBatchStarted.countDown();
+                await(releaseFirstBatch);
+                return;
+            }
+            throw failure;
+        })) {
+            CompletableFuture<Integer> first = groupCommit.submit(0);
+            await(firstBatchStarted);
+            CompletableFuture<Integer> second = groupCommit.submit(1);
+            CompletableFuture<Integer> third = groupCommit.submit(2);
+            releaseFirstBatch.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS), equalTo(0));
+            for (CompletableFuture<Integer> failed : List.of(second, third)) {
+                CompletionException e = assertThrows(CompletionException.class, failed::join);
+                assertThat(e.getCause(), sameInstance(failure));
+            }
+        }
+    }
+
+    @Test
+    void testCloseWritesTheQueuedItemsThenRejectsNewOnes() {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 64, Duration.ZERO, items -> {
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+        });
+        List<CompletableFuture<Integer>> submitted = new ArrayList<>();
+        submitted.add(groupCommit.submit(0));
+        await(firstBatchStarted);
+        for (int i = 1; i <= 10; i++) {
+            submitted.add(groupCommit.submit(i));
+        }
+        Thread closer = new Thread(groupCommit::close);
+        closer.start();
+        releaseFirstBatch.countDown();
+        assertFinishes(closer);
+        submitted.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+        assertThrows(IllegalStateException.class, () -> groupCommit.submit(11));
+    }
+
+    @Test
+    void testEverySubmitRacingWithCloseIsWrittenOrRejected() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            GroupCommit<Integer> groupCommit = new GroupCommit<>("test", 8, Duration.ZERO, items -> {
+            });
+            List<CompletableFuture<Integer>> submitted = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> submitters = new ArrayList<>();
+            for (int s = 0; s < 4; s++) {
+                Thread submitter = new Thread(() -> {
+                    for (int i = 0; ; i++) {
+                        try {
+                            submitted.add(groupCommit.submit(i));
+                        } catch (IllegalStateException closed) {
+                            return;
+                        }
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            Thread.sleep(5);
+            groupCommit.close();
+            for (Thread submitter : submitters) {
+                assertFinishes(submitter);
+            }
+            // nothing is left waiting for a batch which never comes
+            for (CompletableFuture<Integer> future : submitted) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static void assertFinishes(Thread thread) {
+        try {
+            thread.join(10_000);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        assertTrue(!thread.isAlive(), thread + " did not finish");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
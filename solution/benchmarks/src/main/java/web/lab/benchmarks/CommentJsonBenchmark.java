@@ -0,0 +1,71 @@
+package web.lab.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import web.lab.comments.Comment;
+
+/**
+ * Serializes the comments of a ref the way {@code GET /comment/{ref}} does, with the same mapper settings as the
+ * Quarkus default one (ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentJsonBenchmark {
+
+    private static final List<String> COMMENTS = List.of(
+            "**Wow, this new Quarkus update is incredible!**\n\nThe performance improvements are exactly what I needed for my current project.",
+            "While I appreciate the new features, especially the improved memory usage, I feel like the **documentation could be better**.",
+            "This update seems interesting.\n\nI haven't used Quarkus much, but these performance claims are impressive.",
+            "**Quarkus is overrated.**\n\nSpring Boot has been here for years and I won't change.",
+            "I’m new to Quarkus and this update sounds promising. Trying to decide if it's worth learning.",
+            "I’ve heard these performance promises before. Until then, I'll reserve my judgment.");
+
+    @Param({ "10", "100", "1000" })
+    int comments;
+
+    private ObjectMapper mapper;
+    private List<Comment> refComments;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        refComments = new ArrayList<>(comments);
+        LocalDateTime time = LocalDateTime.of(2024, 6, 12, 10, 22);
+        for (int i = 0; i < comments; i++) {
+            Comment comment = new Comment("test", time.minusMinutes(i), "Commenter" + i, COMMENTS.get(i % COMMENTS.size()));
+            comment.id = (long) i;
+            refComments.add(comment);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(refComments);
+    }
+}
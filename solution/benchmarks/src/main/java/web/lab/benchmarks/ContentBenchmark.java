@@ -0,0 +1,66 @@
+package web.lab.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import web.lab.blog.Markdown;
+import web.lab.blog.TemplateExtensions;
+
+/**
+ * The blog template extensions run for every rendered page: a seed post is a typical entry, the 100KB document is
+ * the worst case we want to keep an eye on.
+ * {@code mdToHtml} is served from the HTML cache once warmed up, {@code render} is what a cache miss costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentBenchmark {
+
+    @Param({ "lit", "100KB" })
+    String document;
+
+    private String markdown;
+    private LocalDate published;
+
+    @Setup
+    public void setup() {
+        markdown = document.equals("100KB") ? SeedPosts.document(100 * 1024) : SeedPosts.load(document);
+        published = LocalDate.of(2024, 6, 12);
+    }
+
+    @Benchmark
+    public String mdToHtml() {
+        return TemplateExtensions.mdToHtml(markdown);
+    }
+
+    @Benchmark
+    public String render() {
+        return Markdown.render(markdown);
+    }
+
+    @Benchmark
+    public String toAbstract() {
+        // what the CMS stores when the entry is saved, the blog only reads it
+        return util.Markdown.toAbstract(markdown);
+    }
+
+    @Benchmark
+    public String monthStr() {
+        return TemplateExtensions.monthStr(published);
+    }
+}
@@ -0,0 +1,132 @@
+package web.lab.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the blog entry finders on the same H2 table as the CMS creates it: the old {@code LOWER(column) = LOWER(?)}
+ * queries, which have to scan the table, and the lookups on the indexed columns, which should stay flat as it grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    int entries;
+
+    private Connection connection;
+    private PreparedStatement titleByLower;
+    private PreparedStatement titleByKey;
+    private PreparedStatement slugByLower;
+    private PreparedStatement slugByColumn;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:lookup-" + entries);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE BlogEntry (
+                        id BIGINT PRIMARY KEY,
+                        title VARCHAR(255) UNIQUE,
+                        titleKey VARCHAR(255) UNIQUE,
+                        slug VARCHAR(255) UNIQUE,
+                        picture VARCHAR(255),
+                        content TEXT,
+                        published DATE)""");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO BlogEntry (id, title, titleKey, slug, picture, content, published) VALUES (?, ?, ?, ?, ?, ?, CURRENT_DATE)")) {
+            for (int i = 0; i < entries; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, title(i));
+                insert.setString(3, title(i).toLowerCase(Locale.ROOT));
+                insert.setString(4, slug(i));
+                insert.setString(5, "make-cheese.jpg");
+                insert.setString(6, "## Cheese number " + i);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        titleByLower = connection.prepareStatement("SELECT id FROM BlogEntry WHERE LOWER(title) = LOWER(?)");
+        titleByKey = connection.prepareStatement("SELECT id FROM BlogEntry WHERE titleKey = ?");
+        slugByLower = connection.prepareStatement("SELECT id FROM BlogEntry WHERE LOWER(slug) = LOWER(?)");
+        slugByColumn = connection.prepareStatement("SELECT id FROM BlogEntry WHERE slug = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long titleLowerFunction() throws SQLException {
+        titleByLower.setString(1, title(randomEntry()).toUpperCase(Locale.ROOT));
+        return firstId(titleByLower);
+    }
+
+    @Benchmark
+    public long titleKeyColumn() throws SQLException {
+        titleByKey.setString(1, title(randomEntry()).toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT));
+        return firstId(titleByKey);
+    }
+
+    @Benchmark
+    public long slugLowerFunction() throws SQLException {
+        slugByLower.setString(1, slug(randomEntry()));
+        return firstId(slugByLower);
+    }
+
+    @Benchmark
+    public long slugColumn() throws SQLException {
+        slugByColumn.setString(1, slug(randomEntry()).toLowerCase(Locale.ENGLISH));
+        return firstId(slugByColumn);
+    }
+
+    private int randomEntry() {
+        return ThreadLocalRandom.current().nextInt(entries);
+    }
+
+    private static long firstId(PreparedStatement query) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+
+    private static String title(int i) {
+        return "How to make cheese number " + i + "?";
+    }
+
+    private static String slug(int i) {
+        return "how-to-make-cheese-number-" + i;
+    }
+}
@@ -0,0 +1,55 @@
+package web.lab.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import util.InvertedIndex;
+
+/**
+ * Queries the CMS search index, filled with copies of the seed posts (each one with a distinct title and a few
+ * distinct words, so the terms are not all shared by every entry).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ "50000" })
+    int entries;
+
+    @Param({ "cheese", "quarkus native", "htm", "lit web components", "entry 4242" })
+    String query;
+
+    private InvertedIndex index;
+
+    @Setup
+    public void setup() {
+        List<String> contents = SeedPosts.NAMES.stream().map(SeedPosts::load).toList();
+        index = new InvertedIndex();
+        for (int i = 0; i < entries; i++) {
+            int seed = i % contents.size();
+            String title = SeedPosts.TITLES.get(seed) + " entry " + i;
+            index.put((long) i, title, "entry-" + i, contents.get(seed) + "\n\nTagged topic" + (i % 1000));
+        }
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> search() {
+        return index.search(query, 50);
+    }
+}
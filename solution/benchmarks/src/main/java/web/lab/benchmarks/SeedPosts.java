@@ -0,0 +1,41 @@
+package web.lab.benchmarks;
+
+import java.util.List;
+
+import util.Startup;
+
+/**
+ * The blog posts the CMS seeds in dev mode, read from the CMS resources, so the content benchmarks run on realistic
+ * Markdown. The titles are the ones {@link Startup} gives them.
+ */
+final class SeedPosts {
+
+    static final List<String> NAMES = List.of("make-cheese", "eat-cheese", "start-quarkus", "lit", "htmx");
+
+    static final List<String> TITLES = List.of(
+            "How to make cheese?",
+            "How to eat cheese? The Ultimate Guide to Enjoying Cheese",
+            "Getting Started with Quarkus",
+            "Web Components with Lit",
+            "Exploring HTMX");
+
+    private SeedPosts() {
+    }
+
+    static String load(String name) {
+        return Startup.seedPost(name);
+    }
+
+    /**
+     * Appends all the seed posts, over and over, until the document is at least the given number of chars long.
+     */
+    static String document(int length) {
+        StringBuilder document = new StringBuilder(length + 8192);
+        while (document.length() < length) {
+            for (String name : NAMES) {
+                document.append(load(name)).append("\n\n");
+            }
+        }
+        return document.toString();
+    }
+}
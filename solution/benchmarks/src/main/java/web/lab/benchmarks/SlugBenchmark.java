@@ -0,0 +1,67 @@
+package web.lab.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import util.Slug;
+
+/**
+ * The CMS slugger against the regex one it replaced (one op is all the titles of a set). Run it with -prof gc to
+ * compare their allocations too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlugBenchmark {
+
+    @Param({ "titles", "slugs", "accented" })
+    String set;
+
+    private List<String> inputs;
+
+    @Setup
+    public void setup() {
+        inputs = switch (set) {
+            case "titles" -> SeedPosts.TITLES;
+            // saving an entry whose title already is a slug
+            case "slugs" -> SeedPosts.TITLES.stream().map(Slug::toSlug).toList();
+            case "accented" -> List.of(
+                    "Crème brûlée à la française",
+                    "Smørrebrød og æblekage",
+                    "Größenwahn und Straße",
+                    "Łódź, Kraków i Gdańsk",
+                    "Ça va être génial, naïve façade");
+            default -> throw new IllegalArgumentException(set);
+        };
+    }
+
+    @Benchmark
+    public void toSlug(Blackhole blackhole) {
+        for (String input : inputs) {
+            blackhole.consume(Slug.toSlug(input));
+        }
+    }
+
+    @Benchmark
+    public void legacyToSlug(Blackhole blackhole) {
+        for (String input : inputs) {
+            blackhole.consume(LegacySlug.toSlug(input));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Brings gh-pages.mv.db, the H2 database the CMS and the blog share, to the schema of the current entities, and
+-- fills in what the CMS computes when an entry is saved, so the blog (which doesn't change the schema) has it without
+-- the CMS being started first. Safe to run again:
+--   java -cp h2.jar org.h2.tools.RunScript -url jdbc:h2:./gh-pages -script gh-pages-migration.sql
+
+ALTER TABLE BlogEntry ADD COLUMN IF NOT EXISTS abstractText VARCHAR(512);
+ALTER TABLE BlogEntry ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE BlogEntry ADD COLUMN IF NOT EXISTS updated TIMESTAMP(6) WITH TIME ZONE;
+CREATE INDEX IF NOT EXISTS blogentry_published_id ON BlogEntry(published, id);
+
+-- util.Markdown.toAbstract of the content of the entries
+UPDATE BlogEntry SET abstractText = 'This is the first article of this blog deployed with Quarkus Roq!'
+    WHERE abstractText IS NULL AND slug = 'welcome-on-the-quarkus-web-blog';
+UPDATE BlogEntry SET abstractText = 'Allow Static Site Generation with Quarkus (similar to Hugo, Jekyll, Lume, ...). Quarkus already provides most of the pieces to create great web applications (https://quarkus.io/guides/web). I recently added https://github.com/quarkiverse/quarkus-roq. It will allow generating a static website out of any Quarkus application (it starts the app, fetch all the configured pages and assets, generate a st...'
+    WHERE abstractText IS NULL AND slug = 'initiating-the-quarkus-roq-focus-group';
+
+UPDATE BlogEntry SET version = 1, updated = CAST(published AS TIMESTAMP WITH TIME ZONE) WHERE updated IS NULL;